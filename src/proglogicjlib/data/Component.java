@@ -42,6 +42,8 @@ public class Component {
 	/*Global Variables*/
 	private String reference; /**Reference of schematic symbol, for instance L1 for inductor, this is the unique identifier of one component in a schematic. */
 	private String value; /** This is the type of component for instance LM317 voltage regulator etc.  */
+	private int referenceId = -1; /** Id of the reference in the SymbolTable of the netlist, -1 if not set */
+	private int valueId = -1; /** Id of the value in the SymbolTable of the netlist, -1 if not set */
 	
 	/**
 	 * Constructor for initializations purposes
@@ -86,6 +88,26 @@ public class Component {
 	 */
 	public String getValue(){return this.value;}
 	
+	/**
+	 * Set up the SymbolTable ids of reference and value
+	 * @param referenceId
+	 * @param valueId
+	 */
+	public void setSymbolIds(int referenceId, int valueId){
+		this.referenceId = referenceId;
+		this.valueId = valueId;
+	}//end setSymbolIds()
+	
+	/**
+	 * @return SymbolTable id of the reference, -1 if not set
+	 */
+	public int getReferenceId(){return this.referenceId;}
+	
+	/**
+	 * @return SymbolTable id of the value, -1 if not set
+	 */
+	public int getValueId(){return this.valueId;}
+	
 	/**
 	 * Giving this method a line that contains a parameter information enclosed in a starting end ending delimiter character
 	 * information and it will extract value and return the input line without the size information in it. The return array has always two 
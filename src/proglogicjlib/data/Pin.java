@@ -34,26 +34,28 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 package com.proglogicjlib.data;
 
+import java.util.Objects;
+
 public class Pin {
 	/**
 	 * Used when pin is an output
 	 */
-	public static String TYPE_OUT = "out";
+	public static final String TYPE_OUT = "out";
 	
 	/**
 	 * Used when pin is an input
 	 */
-	public static String TYPE_IN = "in";
+	public static final String TYPE_IN = "in";
 	
 	/**
 	 * Used when a pin is an inout
 	 */
-	public static String TYPE_INOUT = "inout"; 
+	public static final String TYPE_INOUT = "inout"; 
 	
 	/**
 	 * Used when type of pin is not known
 	 */
-	public static String UKNOWN = "unknown"; 
+	public static final String UKNOWN = "unknown"; 
 	
 	/**
 	 * Pin Number
@@ -66,6 +68,11 @@ public class Pin {
 	 */
 	private String name;
 	
+	/**
+	 * Id of the name in the SymbolTable of the netlist, -1 if not set
+	 */
+	private int nameId;
+	
 	/**
 	 * Input type of the pin, see static type attributes of this class. Determines the direction of the pin. 
 	 */
@@ -90,6 +97,7 @@ public class Pin {
 	public Pin(){
 		no = -1;
 		name = null;
+		nameId = -1;
 		type = "";
 		size = "";
 		isVector = false;
@@ -109,6 +117,7 @@ public class Pin {
 
 		 no = no_s;            
 		 name = name_s;        
+		 nameId = pin.nameId;
 		 type = type_s;
  		 size = size_s;        
 		 isVector = isVector_s;    
@@ -132,6 +141,7 @@ public class Pin {
 	public Pin(int no, int compId, String name, String type, String datatype, String size, boolean isVector, String HDLsigName, boolean isSignal){
 		this.no = no;
 		this.name = name;
+		this.nameId = -1;
 		this.type = type;
 		this.size = size;
 		this.isVector = isVector;
@@ -140,6 +150,7 @@ public class Pin {
 	//set methods
 	public void setNo(int no){this.no = no;}
 	public void setName(String name){this.name = name;}
+	public void setNameId(int nameId){this.nameId = nameId;}
 	public void setType(String type){this.type = type;}
 	public void setSize(String size){this.size = size;}
 	//public void setIsVector(boolean isVector){this.isVector = isVector;}
@@ -147,6 +158,7 @@ public class Pin {
 	//get methods
 	public int getNo(){return this.no;}
 	public String getName(){return this.name;}
+	public int getNameId(){return this.nameId;}
 	public String getType(){return this.type;}
 	public String getSize(){return this.size;}
 	
@@ -178,4 +190,23 @@ public class Pin {
 		System.out.println("Size =" + this.size );
 	}//end print()
 	
+	/**
+	 * Pins are equal if number, name, type and size are equal. The id of the name is not compared, 
+	 * it depends on the symbol table of the netlist.
+	 */
+	@Override
+	public boolean equals(Object o){
+		if(o == this) return true;
+		if(o == null || o.getClass() != this.getClass()) return false;
+		
+		Pin pin = (Pin)o;
+		return this.getNo() == pin.getNo() && Objects.equals(this.getName(), pin.getName()) && Objects.equals(this.getType(), pin.getType()) 
+				&& Objects.equals(this.getSize(), pin.getSize());
+	}//end equals()
+	
+	@Override
+	public int hashCode(){
+		return Objects.hash(this.getNo(), this.getName(), this.getType(), this.getSize());
+	}//end hashCode()
+	
 }//end class
@@ -0,0 +1,201 @@
+/*BSD 3 clause license
+
+Copyright (c) 2014, Thomas Kinder, info@thinkingsand.com
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification,are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation 
+   and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+   may be used to endorse or promote products derived from this software 
+   without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL Thomas Kinder OR CONTRIBUTORS
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+/**
+ * Symbol table that stores every identifier of a netlist only once. Each identifier gets a dense 
+ * id starting with 0, identifiers that only differ in upper and lower case letters share the same 
+ * ignore case id. Compare ids instead of calling equalsIgnoreCase() on the strings.
+ * All methods are synchronized, one table can be used by several parser threads at the same time.
+ */
+package com.proglogicjlib.data;
+
+public class SymbolTable {
+	
+	private static final int INITIAL_CAPACITY = 256;
+	
+	private String[] symbols = new String[INITIAL_CAPACITY];
+	private int[] ignoreCaseIds = new int[INITIAL_CAPACITY];
+	private int count = 0;
+	
+	//open addressing hash tables, the entries are id+1, 0 = empty slot
+	private int[] table = new int[INITIAL_CAPACITY * 2];
+	private int[] ignoreCaseTable = new int[INITIAL_CAPACITY * 2];
+	
+	/**
+	 * Get the id of an identifier, the identifier is added to the table if it is not contained yet
+	 * @param symbol identifier, for instance a component reference
+	 * @return id of the identifier or -1 if symbol is null
+	 */
+	public synchronized int getId(CharSequence symbol){
+		if(symbol == null) return -1;
+		if(!(symbol instanceof String) && !isAscii(symbol)){//views like MappedText only equal their decoded string for ASCII text
+			symbol = symbol.toString();
+		}//end if
+		
+		int mask = this.table.length - 1;
+		int slot = hash(symbol, false) & mask;
+		int entry;
+		while((entry = this.table[slot]) != 0){
+			if(matches(this.symbols[entry-1], symbol, false)) return entry-1;
+			slot = (slot + 1) & mask;
+		}//end while
+		
+		return add(symbol.toString(), slot);
+	}//end getId()
+	
+	/**
+	 * Get the canonical instance of an identifier, the identifier is added to the table if it is not contained yet
+	 * @param symbol
+	 * @return canonical string or null if symbol is null
+	 */
+	public synchronized String intern(CharSequence symbol){
+		if(symbol == null) return null;
+		return this.symbols[getId(symbol)];
+	}//end intern()
+	
+	/**
+	 * @param id
+	 * @return identifier of the id
+	 */
+	public synchronized String getSymbol(int id){
+		if(id < 0) return null;
+		return this.symbols[id];
+	}//end getSymbol()
+	
+	/**
+	 * Get the id that is shared by all identifiers that only differ in upper and lower case letters. 
+	 * This is the id of the first of those identifiers that has been added to the table.
+	 * @param id
+	 * @return ignore case id, -1 if id is -1
+	 */
+	public synchronized int getIgnoreCaseId(int id){
+		if(id < 0) return -1;
+		return this.ignoreCaseIds[id];
+	}//end getIgnoreCaseId()
+	
+	/**
+	 * @return number of identifiers in the table
+	 */
+	public synchronized int size(){return this.count;}
+	
+	private int add(String symbol, int slot){
+		int id = this.count;
+		
+		if(id == this.symbols.length){
+			String[] tempSymbols = new String[id * 2];
+			int[] tempIds = new int[id * 2];
+			System.arraycopy(this.symbols, 0, tempSymbols, 0, id);
+			System.arraycopy(this.ignoreCaseIds, 0, tempIds, 0, id);
+			this.symbols = tempSymbols;
+			this.ignoreCaseIds = tempIds;
+		}//end if
+		
+		this.symbols[id] = symbol;
+		this.table[slot] = id + 1;
+		this.count++;
+		
+		//find or create the ignore case id
+		int mask = this.ignoreCaseTable.length - 1;
+		int ignoreCaseSlot = hash(symbol, true) & mask;
+		int entry;
+		this.ignoreCaseIds[id] = -1;
+		while((entry = this.ignoreCaseTable[ignoreCaseSlot]) != 0){
+			if(matches(this.symbols[entry-1], symbol, true)){
+				this.ignoreCaseIds[id] = entry-1;
+				break;
+			}//end if
+			ignoreCaseSlot = (ignoreCaseSlot + 1) & mask;
+		}//end while
+		if(this.ignoreCaseIds[id] < 0){
+			this.ignoreCaseIds[id] = id;
+			this.ignoreCaseTable[ignoreCaseSlot] = id + 1;
+		}//end if
+		
+		//keep the tables at most half full
+		if(this.count * 2 >= this.table.length){
+			rehash(this.table.length * 2);
+		}//end if
+		
+		return id;
+	}//end add()
+	
+	private void rehash(int capacity){
+		int mask = capacity - 1;
+		int slot;
+		this.table = new int[capacity];
+		this.ignoreCaseTable = new int[capacity];
+		
+		for(int id = 0; id < this.count; id++){
+			slot = hash(this.symbols[id], false) & mask;
+			while(this.table[slot] != 0) slot = (slot + 1) & mask;
+			this.table[slot] = id + 1;
+			
+			if(this.ignoreCaseIds[id] == id){
+				slot = hash(this.symbols[id], true) & mask;
+				while(this.ignoreCaseTable[slot] != 0) slot = (slot + 1) & mask;
+				this.ignoreCaseTable[slot] = id + 1;
+			}//end if
+		}//end for(id)
+	}//end rehash()
+	
+	private static int hash(CharSequence symbol, boolean ignoreCase){
+		int h = 0;
+		for(int i = 0; i < symbol.length(); i++){
+			h = 31 * h + (ignoreCase ? fold(symbol.charAt(i)) : symbol.charAt(i));
+		}//end for(i)
+		return h ^ (h >>> 16);
+	}//end hash()
+	
+	private static boolean isAscii(CharSequence symbol){
+		for(int i = 0; i < symbol.length(); i++){
+			if(symbol.charAt(i) > 0x7F) return false;
+		}//end for(i)
+		return true;
+	}//end isAscii()
+	
+	private static boolean matches(String a, CharSequence b, boolean ignoreCase){
+		if(a.length() != b.length()) return false;
+		for(int i = 0; i < a.length(); i++){
+			char c1 = a.charAt(i);
+			char c2 = b.charAt(i);
+			if(c1 == c2) continue;
+			if(!ignoreCase || fold(c1) != fold(c2)) return false;
+		}//end for(i)
+		return true;
+	}//end matches()
+	
+	/**
+	 * Same case folding as String.equalsIgnoreCase()
+	 */
+	private static char fold(char c){
+		return Character.toLowerCase(Character.toUpperCase(c));
+	}//end fold()
+	
+}//end class
@@ -39,6 +39,34 @@ public class Block {
 	private int start; 
 	private int end;
 	private String blockText;
+	private String name;
+	
+	private CharSequence source;
+	private int startIndex;
+	private int endIndex;
+	
+	public Block(){
+		this.blockText = null;
+		this.name = "";
+		this.source = "";
+		this.startIndex = 0;
+		this.endIndex = 0;
+	}//end constructor
+	
+	/**
+	 * Create a block that refers to a region of the netlist content without copying it
+	 * @param name name of the netlist section, for instance components
+	 * @param source complete netlist content
+	 * @param startIndex index of the opening bracket of the block
+	 * @param endIndex index after the closing bracket of the block
+	 */
+	public Block(String name, CharSequence source, int startIndex, int endIndex){
+		this.blockText = null;
+		this.name = name;
+		this.source = source;
+		this.startIndex = startIndex;
+		this.endIndex = endIndex;
+	}//end constructor
 	
 	/**
 	 * Set the line number of the original document where this block has been found
@@ -54,6 +82,9 @@ public class Block {
 	 */
 	public void setText(String val){
 		this.blockText = val;
+		this.source = val;
+		this.startIndex = 0;
+		this.endIndex = val.length();
 	}
 	
 	/**
@@ -77,9 +108,47 @@ public class Block {
      * @return
      */
 	public String getText(){
+		if(this.blockText == null){
+			this.blockText = this.source.subSequence(this.startIndex, this.endIndex).toString();
+		}//end if
 		return this.blockText;
 	}
 	
+	/**
+	 * Get the number of characters of the block without creating the block text
+	 * @return
+	 */
+	public int getLength(){
+		return this.endIndex - this.startIndex;
+	}
+	
+	/**
+	 * Get the name of the netlist section this block has been created from
+	 * @return
+	 */
+	public String getName(){
+		return this.name;
+	}
+	
+	/**
+	 * Create a new tokenizer that processes only the content of this block
+	 * @return
+	 */
+	public KiCadTokenizer getTokenizer(){
+		return new KiCadTokenizer(this.source, this.startIndex, this.endIndex, this.start);
+	}
+	
+	/**
+	 * Create a new tokenizer that processes only a part of this block
+	 * @param fromIndex index of the first character in the netlist content
+	 * @param toIndex index after the last character in the netlist content
+	 * @param line line number of fromIndex in the original file
+	 * @return
+	 */
+	public KiCadTokenizer getTokenizer(int fromIndex, int toIndex, int line){
+		return new KiCadTokenizer(this.source, fromIndex, toIndex, line);
+	}
+	
 	/**
 	 * Return the end line of the block in the original file
 	 * @return
@@ -0,0 +1,210 @@
+/*BSD 3 clause license
+
+Copyright (c) 2014, Thomas Kinder, info@thinkingsand.com
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification,are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation 
+   and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+   may be used to endorse or promote products derived from this software 
+   without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL Thomas Kinder OR CONTRIBUTORS
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+/**
+ * Manifest of the conversions into one output directory. For every netlist the manifest records a key of all inputs 
+ * of the conversion and size and time stamp of the VHDL file that has been created. A conversion can be skipped if
+ * the key of its inputs is the same as in the manifest and the VHDL file has not been changed since.
+ * The key covers the content of the netlist, the template files, the version of the library and the conversion options.
+ */
+package com.proglogicjlib.kicad;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.proglogicjlib.vhdl.VhdlFile;
+import com.proglogicjlib.vhdl.VhdlOutputFile;
+import com.proglogicjlib.vhdl.VhdlRenderCache;
+
+public class ConversionManifest {
+	/**Name of the manifest file in the output directory*/
+	public static final String MANIFEST_FILE_NAME = ".kicadtovhdl.manifest";
+	
+	/**Version of the generated code, increase it whenever a change of the library changes the generated VHDL files*/
+	public static final int CODE_VERSION = 1;
+	
+	/**Manifests are read, changed and written under this lock, conversions of several threads can share a directory.
+	 * A lock instead of synchronized does not pin a virtual thread to its carrier while the file is read or written.*/
+	private static final ReentrantLock LOCK = new ReentrantLock();
+	private static final Charset CHARSET = Charset.forName("UTF-8");
+	
+	/**
+	 * Create the key of all inputs of a conversion
+	 * @param netlist netlist file
+	 * @param options all options that change the generated code
+	 * @return SHA-256 hash as hex string
+	 * @throws IOException netlist can not be read
+	 */
+	public static String getInputKey(File netlist, Object... options) throws IOException{
+		StringBuilder key = new StringBuilder();
+		key.append(ConversionManifest.hashFile(netlist)).append('\0');
+		key.append(VhdlFile.getTemplatesHash()).append('\0');
+		key.append(ConversionManifest.getLibraryVersion()).append('\0');
+		for(int i = 0; i < options.length; i++){
+			key.append(options[i]).append('\0');
+		}//end for(i)
+		return VhdlRenderCache.hash(key);
+	}//end getInputKey()
+	
+	/**
+	 * @return version of the generated code and the version of the library jar, if the library is loaded from a jar
+	 */
+	public static String getLibraryVersion(){
+		Package pkg = ConversionManifest.class.getPackage();
+		String jarVersion = pkg != null ? pkg.getImplementationVersion() : null;
+		return CODE_VERSION + (jarVersion != null ? "/" + jarVersion : "");
+	}//end getLibraryVersion()
+	
+	/**
+	 * Check if the VHDL file of a netlist is up to date
+	 * @param dir output directory
+	 * @param netlist netlist file
+	 * @param inputKey key of the inputs of the conversion, see getInputKey()
+	 * @return true if the manifest contains the same key for the netlist and the VHDL file has not been changed since
+	 */
+	public static boolean isUpToDate(File dir, File netlist, String inputKey){
+		return ConversionManifest.getUpToDateFile(dir, netlist, inputKey) != null;
+	}//end isUpToDate()
+	
+	/**
+	 * Same as isUpToDate() but returns the VHDL file that has been recorded for the netlist
+	 * @param dir output directory
+	 * @param netlist netlist file
+	 * @param inputKey key of the inputs of the conversion, see getInputKey()
+	 * @return the VHDL file if it is up to date, null otherwise
+	 */
+	public static File getUpToDateFile(File dir, File netlist, String inputKey){
+		String entry;
+		LOCK.lock();
+		try {
+			entry = ConversionManifest.load(dir).getProperty(netlist.getAbsolutePath());
+		} finally {
+			LOCK.unlock();
+		}//end try
+		if(entry == null) return null;
+		
+		String[] values = entry.split("\t");
+		if(values.length != 4 || !values[0].equals(inputKey)) return null;
+		
+		File output = new File(dir, values[1]);
+		if(output.isFile() && String.valueOf(output.length()).equals(values[2]) && String.valueOf(output.lastModified()).equals(values[3])){
+			return output;
+		}//end if
+		return null;
+	}//end getUpToDateFile()
+	
+	/**
+	 * Record a conversion in the manifest of the output directory
+	 * @param dir output directory
+	 * @param netlist netlist file
+	 * @param inputKey key of the inputs of the conversion, see getInputKey()
+	 * @param output VHDL file that has been created
+	 * @throws IOException
+	 */
+	public static void update(File dir, File netlist, String inputKey, File output) throws IOException{
+		LOCK.lock();
+		try {
+			Properties manifest = ConversionManifest.load(dir);
+			manifest.setProperty(netlist.getAbsolutePath(), inputKey + "\t" + output.getName() + "\t" + output.length() + "\t" + output.lastModified());
+			
+			VhdlOutputFile out = new VhdlOutputFile(new File(dir, MANIFEST_FILE_NAME), CHARSET);
+			try {
+				manifest.store(out, "Conversions of KiCad netlists into this directory");
+				out.close();
+				out.commit();
+			} catch (IOException e) {
+				out.discard();
+				throw e;
+			}//end try
+		} finally {
+			LOCK.unlock();
+		}//end try
+	}//end update()
+	
+	/**
+	 * Read the manifest of a directory, a manifest that does not exist or can not be read is empty
+	 */
+	private static Properties load(File dir){
+		Properties manifest = new Properties();
+		File file = new File(dir, MANIFEST_FILE_NAME);
+		if(!file.isFile()) return manifest;
+		
+		try {
+			Reader in = new InputStreamReader(new FileInputStream(file), CHARSET);
+			try {
+				manifest.load(in);
+			} finally {
+				in.close();
+			}//end finally
+		} catch (IOException e) {
+			manifest.clear();
+		}//end try
+		return manifest;
+	}//end load()
+	
+	/**
+	 * @return SHA-256 hash of the content of a file as hex string
+	 */
+	private static String hashFile(File file) throws IOException{
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {//every java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}//end try
+		
+		byte[] buffer = new byte[65536];
+		InputStream in = new FileInputStream(file);
+		try {
+			for(int length = in.read(buffer); length >= 0; length = in.read(buffer)){
+				digest.update(buffer, 0, length);
+			}//end for(length)
+		} finally {
+			in.close();
+		}//end finally
+		
+		StringBuilder hex = new StringBuilder();
+		byte[] hash = digest.digest();
+		for(int i = 0; i < hash.length; i++){
+			hex.append(Character.forDigit((hash[i] >> 4) & 0x0f, 16)).append(Character.forDigit(hash[i] & 0x0f, 16));
+		}//end for(i)
+		return hex.toString();
+	}//end hashFile()
+	
+}//end class
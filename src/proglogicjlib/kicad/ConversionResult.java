@@ -0,0 +1,119 @@
+/*BSD 3 clause license
+
+Copyright (c) 2014, Thomas Kinder, info@thinkingsand.com
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification,are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation 
+   and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+   may be used to endorse or promote products derived from this software 
+   without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL Thomas Kinder OR CONTRIBUTORS
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+/**
+ * Result of the conversion of one netlist, see KiCadToVhdl.convertNetlist() and KiCadToVhdl.netlistsToVhdl().
+ * Every conversion keeps the state it reports in its own result.
+ */
+package com.proglogicjlib.kicad;
+
+import java.io.File;
+import java.util.ArrayList;
+
+import com.proglogicjlib.vhdl.ConnectivityGraph;
+
+public class ConversionResult {
+	private File netlist;
+	private String vhdlFilePath = null;
+	private boolean upToDate = false;
+	private boolean fileKept = false;
+	private Exception error = null;
+	private ArrayList<String> signalConflicts = new ArrayList<String>();
+	private ArrayList<String> prunedComponents = new ArrayList<String>();
+	private ConnectivityGraph connectivity = null;
+	private long durationMillis = 0;
+	
+	/**
+	 * @param netlist netlist file of the conversion
+	 */
+	ConversionResult(File netlist){
+		this.netlist = netlist;
+	}
+	
+	void setVhdlFilePath(String vhdlFilePath){this.vhdlFilePath = vhdlFilePath;}
+	void setUpToDate(boolean upToDate){this.upToDate = upToDate;}
+	void setFileKept(boolean fileKept){this.fileKept = fileKept;}
+	void setSignalConflicts(ArrayList<String> signalConflicts){this.signalConflicts = signalConflicts;}
+	void setConnectivityGraph(ConnectivityGraph connectivity){this.connectivity = connectivity;}
+	void setError(Exception error){this.error = error;}
+	void setDurationMillis(long durationMillis){this.durationMillis = durationMillis;}
+	
+	/**
+	 * @return netlist file of the conversion
+	 */
+	public File getNetlist(){return this.netlist;}
+	
+	/**
+	 * @return absolute path of the VHDL file, also of an up to date file, null if the conversion failed or the file has not been saved
+	 */
+	public String getVhdlFilePath(){return this.vhdlFilePath;}
+	
+	/**
+	 * @return true if the conversion has been skipped because the VHDL file was up to date
+	 */
+	public boolean getUpToDate(){return this.upToDate;}
+	
+	/**
+	 * @return true if an existing VHDL file of different content has been kept, the file is outdated then, see VhdlFile.getFileKept()
+	 */
+	public boolean getFileKept(){return this.fileKept;}
+	
+	/**
+	 * @return true if the conversion has not failed
+	 */
+	public boolean getSucceeded(){return this.error == null;}
+	
+	/**
+	 * @return CloseProgramException, WarningException or RuntimeException the conversion failed with, null if it succeeded
+	 */
+	public Exception getError(){return this.error;}
+	
+	/**
+	 * @return nets that are declared with conflicting datatypes or widths, see KiCadToVhdl.getSignalConflicts()
+	 */
+	public ArrayList<String> getSignalConflicts(){return this.signalConflicts;}
+	
+	/**
+	 * @return references of the components that have been removed as dead logic
+	 */
+	public ArrayList<String> getPrunedComponents(){return this.prunedComponents;}
+	
+	/**
+	 * @return connectivity of the converted design, null if the conversion has been skipped or failed before, 
+	 * see KiCadToVhdl.getConnectivityGraph()
+	 */
+	public ConnectivityGraph getConnectivityGraph(){return this.connectivity;}
+	
+	/**
+	 * @return wall clock time of the conversion in milliseconds
+	 */
+	public long getDurationMillis(){return this.durationMillis;}
+	
+}//end class
@@ -35,6 +35,8 @@ import java.util.ArrayList;
 public class KiCadDataHelper {
 	private String value;
 	private String refference;
+	private int valueId = -1;
+	private int refferenceId = -1;
 	private ArrayList<KiCadField> fields;
 	
 	public KiCadDataHelper(){
@@ -43,10 +45,13 @@ public class KiCadDataHelper {
 	
 	public void setValue(String value){this.value = value;}
 	public void setRefference(String ref){this.refference = ref;}
+	public void setSymbolIds(int refId, int valueId){this.refferenceId = refId; this.valueId = valueId;}
 	public void addField(KiCadField field){this.fields.add(field);}
 	
 	public String getValue(){return this.value;}
 	public String getRefference(){return this.refference;}
+	public int getRefferenceId(){return this.refferenceId;}
+	public int getValueId(){return this.valueId;}
 	public ArrayList<KiCadField> getFields(){return this.fields;}
 	
 	public boolean hasFields(){
@@ -39,6 +39,7 @@ import com.proglogicjlib.data.Pin;
 
 public class KiCadLibparts {
 	private String value;
+	private int valueId = -1;
 	private ArrayList<Pin> pins;
 	
 	public KiCadLibparts(String val, ArrayList<Pin> pins){
@@ -50,6 +51,8 @@ public class KiCadLibparts {
 	public ArrayList<Pin> getPins(){return this.pins;}
 	public void addPin(Pin pin){this.pins.add(pin);};
 	public String getValue(){return this.value;}
+	public void setValueId(int valueId){this.valueId = valueId;}
+	public int getValueId(){return this.valueId;}
 	
 	
 }//end class
@@ -36,18 +36,28 @@ import java.util.ArrayList;
 public class KiCadNet {
 	private ArrayList<String> references;
 	private ArrayList<Integer> pinNumbers;
+	private ArrayList<Integer> referenceIds;
 	
 	public KiCadNet(){
 		this.references = new ArrayList<String>();
 		this.pinNumbers = new ArrayList<Integer>();
+		this.referenceIds = new ArrayList<Integer>();
 	}//end constructor
 	
 	public ArrayList<String> getReferences(){return this.references;}
 	public ArrayList<Integer> getPinNumbers(){return this.pinNumbers;}
+	public ArrayList<Integer> getReferenceIds(){return this.referenceIds;}
 	
 	public void addReferencePin(String ref, int pinNo){
 		this.pinNumbers.add(pinNo);
 		this.references.add(ref);
+		this.referenceIds.add(-1);
+	}
+	
+	public void addReferencePin(String ref, int refId, int pinNo){
+		this.pinNumbers.add(pinNo);
+		this.references.add(ref);
+		this.referenceIds.add(refId);
 	}
 	
 	
@@ -34,44 +34,83 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package com.proglogicjlib.kicad;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.proglogicjlib.data.Component;
 import com.proglogicjlib.data.Pin;
+import com.proglogicjlib.data.SymbolTable;
 import com.proglogicjlib.misc.CloseProgramException;
 import com.proglogicjlib.misc.InfoAndMessages;
 import com.proglogicjlib.misc.WarningException;
 
 public class KiCadParseNetlist {
 	
-	private static String NETLIST_NOT_FOUND_ID = "(KiCadParser:001)";
-	private static String NETLIST_NOT_FOUND = NETLIST_NOT_FOUND_ID + "Netlist file could not be found";
+	private static final String NETLIST_NOT_FOUND_ID = "(KiCadParser:001)";
+	private static final String NETLIST_NOT_FOUND = NETLIST_NOT_FOUND_ID + "Netlist file could not be found";
 	
-	private static String COMPONENT_GENERIC_MISSING_CLOSING_BRACKET_ID = "(COMPS:001)";
-	private static String COMPONENT_GENERIC_MISSING_CLOSING_BRACKET = COMPONENT_GENERIC_MISSING_CLOSING_BRACKET_ID + "Generic parameter is missing a closing bracket. Programm will be closed.";
+	private static final String NETLIST_NOT_READABLE_ID = "(KiCadParser:002)";
+	private static final String NETLIST_NOT_READABLE = NETLIST_NOT_READABLE_ID + "Netlist file could not be read";
 	
+	private static final String NETLIST_TOO_LARGE_ID = "(KiCadParser:003)";
+	private static final String NETLIST_TOO_LARGE = NETLIST_TOO_LARGE_ID + "Netlist file is too large to be mapped into memory (max. 2GB)";
 	
-	public static String FIELD = "(field ";
-	public static String LIBPART = "(libpart ";
-	public static String PART = "(part ";
-	public static String NAME = "(name ";
-	public static String PIN = "(pin ";
-	public static String NUM = "(num ";
-	public static String TYPE = "(type ";
-	public static String NETS = "(nets ";
-	public static String NET = "(net ";
-	public static String NODE = "(node ";
-	public static String REF = "(ref ";
-	public static String COMP = "(comp ";
-	public static String VALUE = "(value ";
-	public static String SOURCE = "(source ";
-	public static String SCH = ".sch";
+	private static final String COMPONENT_GENERIC_MISSING_CLOSING_BRACKET_ID = "(COMPS:001)";
+	private static final String COMPONENT_GENERIC_MISSING_CLOSING_BRACKET = COMPONENT_GENERIC_MISSING_CLOSING_BRACKET_ID + "Generic parameter is missing a closing bracket. Programm will be closed.";
 	
-	public static String INPUT = "input";
-	public static String OUTPUT = "output";
-	public static String INOUT = "BiDi";
+	
+	public static final String FIELD = "(field ";
+	public static final String LIBPART = "(libpart ";
+	public static final String PART = "(part ";
+	public static final String NAME = "(name ";
+	public static final String PIN = "(pin ";
+	public static final String NUM = "(num ";
+	public static final String TYPE = "(type ";
+	public static final String NETS = "(nets ";
+	public static final String NET = "(net ";
+	public static final String NODE = "(node ";
+	public static final String REF = "(ref ";
+	public static final String COMP = "(comp ";
+	public static final String VALUE = "(value ";
+	public static final String SOURCE = "(source ";
+	public static final String SCH = ".sch";
+	
+	public static final String INPUT = "input";
+	public static final String OUTPUT = "output";
+	public static final String INOUT = "BiDi";
+	
+	//list names used by the tokenizer based parser
+	private static final String ATOM_COMP = "comp";
+	private static final String ATOM_REF = "ref";
+	private static final String ATOM_VALUE = "value";
+	private static final String ATOM_FIELDS = "fields";
+	private static final String ATOM_FIELD = "field";
+	private static final String ATOM_NAME = "name";
+	private static final String ATOM_LIBPART = "libpart";
+	private static final String ATOM_PART = "part";
+	private static final String ATOM_PINS = "pins";
+	private static final String ATOM_PIN = "pin";
+	private static final String ATOM_NUM = "num";
+	private static final String ATOM_TYPE = "type";
+	private static final String ATOM_NET = "net";
+	private static final String ATOM_NODE = "node";
+	private static final String ATOM_SOURCE = "source";
+	
+	private static final int READ_BUFFER_SIZE = 65536;
+	private static final Charset CHARSET = Charset.forName("UTF-8");//same decoding as MappedText
+	private static final int NETS_MIN_CHUNK_SIZE = 65536;
+	private static final int NETS_CHUNKS_PER_WORKER = 4;
 	
 	
 	/**
@@ -87,11 +126,17 @@ public class KiCadParseNetlist {
 	 * @param file
 	 * @return
 	 */
-	public static int INDEX_DESIGN = 0;
-	public static int INDEX_COMPONENTS = 1;
-	public static int INDEX_LIBPARTS = 2;
-	public static int INDEX_LIBRARIES = 3;
-	public static int INDEX_NETS = 4;
+	public static final int INDEX_DESIGN = 0;
+	public static final int INDEX_COMPONENTS = 1;
+	public static final int INDEX_LIBPARTS = 2;
+	public static final int INDEX_LIBRARIES = 3;
+	public static final int INDEX_NETS = 4;
+	
+	
+	/**
+	 * Names of the netlist sections, the position in the array is the block index
+	 */
+	private static final String[] SECTION_NAMES = {"design", "components", "libparts", "libraries", "nets"};
 	
 	/**
 	 * This method extracts netlist parameter in the following blocks 
@@ -107,71 +152,174 @@ public class KiCadParseNetlist {
 	 * @throws CloseProgramException 
 	 */
     public static ArrayList<Block> getBlocks(File file) throws CloseProgramException{
+    	return getBlocks(readNetlist(file));
+    }//end getBlocks()
+    
+    /**
+     * Same as getBlocks(File) but the netlist file can optionally be mapped into memory instead of being read 
+     * onto the heap. Use this mode for very large netlist files.
+     * @param file KiCad netlist file "*.net"
+     * @param memoryMapped true = map the file with FileChannel.map and parse directly on the mapped bytes, false = read the file into memory
+     * @return
+     * @throws CloseProgramException
+     */
+    public static ArrayList<Block> getBlocks(File file, boolean memoryMapped) throws CloseProgramException{
+    	if(memoryMapped){
+    		return getBlocks(mapNetlist(file));
+    	}else{
+    		return getBlocks(readNetlist(file));
+    	}//end if
+    }//end getBlocks()
+    
+    /**
+     * Read the complete content of the netlist file into memory
+     * @param file KiCad netlist file "*.net"
+     * @return file content
+     * @throws CloseProgramException
+     */
+    public static CharSequence readNetlist(File file) throws CloseProgramException{
+    	StringBuilder content = new StringBuilder((int)Math.min(file.length(), Integer.MAX_VALUE - 8));
+    	char[] buffer = new char[READ_BUFFER_SIZE];
+    	Reader reader = null;
+    	int count = 0;
     	
-		Scanner scanner = null;
-		int open, close,res,start, end = 0;
-		int lineNo = 0;
-		boolean finished = false;
-		boolean firstCall = true;
-		Block block = new Block();
-		ArrayList<Block> blockArr = new ArrayList<Block>();
-		
-		try {
-			scanner = new Scanner(file);
+    	try {
+			reader = new InputStreamReader(new FileInputStream(file), CHARSET);
+			while((count = reader.read(buffer)) > 0){
+				content.append(buffer, 0, count);
+			}//end while
 		} catch (FileNotFoundException e) {
-			// TODO Auto-generated catch block
 			InfoAndMessages.showError(NETLIST_NOT_FOUND);
-			e.printStackTrace();
-		}
-		
-
-		//initialize variables
-		lineNo = 0;
-		String line = "";
-		String tempString = "";
-		block.setText("");
-		
-		//start block extraction. Count open and close brackets and determine with that the beginning and the end of a block.
-		//The first line of the net list is always ignored.
-		while (scanner.hasNextLine()) {
-			if(firstCall){
-				line = scanner.nextLine();
-				lineNo = 1; //always start from second line
-				firstCall = false;
+		} catch (IOException e) {
+			InfoAndMessages.showError(NETLIST_NOT_READABLE + " " + e.getMessage());
+		} finally {
+			if(reader != null){
+				try {
+					reader.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
 			}//end if
-			
-			//extract blocks
-			start = lineNo;
-			res = 0;
-			tempString = "";
-			while(!finished && scanner.hasNextLine()){
-				
-				line = scanner.nextLine();
-				tempString = tempString + line;
-				
-				open = countChar(line, '(') + res;
-				close = countChar(line, ')');
-				res = open - close;
-
-				if(res <= 0){
-					finished = true;
-					end = lineNo;
+		}//end try
+    	
+    	return content;
+    }//end readNetlist()
+    
+    /**
+     * Map the netlist file read only into memory. All blocks and values that are parsed out of 
+     * the returned content are views of the mapping until they are converted into strings.
+     * @param file KiCad netlist file "*.net"
+     * @return mapped file content
+     * @throws CloseProgramException
+     */
+    public static CharSequence mapNetlist(File file) throws CloseProgramException{
+    	FileInputStream stream = null;
+    	CharSequence content = "";
+    	
+    	try {
+    		stream = new FileInputStream(file);
+    		FileChannel channel = stream.getChannel();
+    		if(channel.size() > Integer.MAX_VALUE){
+    			InfoAndMessages.showError(NETLIST_TOO_LARGE);
+    		}//end if
+    		
+    		//the mapping stays valid after the channel has been closed
+    		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    		content = new MappedText(buffer, 0, (int)channel.size());
+    	} catch (FileNotFoundException e) {
+			InfoAndMessages.showError(NETLIST_NOT_FOUND);
+		} catch (IOException e) {
+			InfoAndMessages.showError(NETLIST_NOT_READABLE + " " + e.getMessage());
+		} finally {
+			if(stream != null){
+				try {
+					stream.close();
+				} catch (IOException e) {
+					e.printStackTrace();
 				}
-				
-				lineNo++;
-			}//end while
-			finished = false;
-			block.setEnd(end);
-			block.setStart(start);
-			block.setText(tempString);
-			blockArr.add(block);
-			block = new Block();
-			
-		}//end while
-		scanner.close();
-		return blockArr;
+			}//end if
+		}//end try
+    	
+    	return content;
+    }//end mapNetlist()
+    
+    /**
+     * Separate the netlist content into its sections with a single pass over the text. 
+     * The returned blocks only refer to the content, the section text is not copied. Sections 
+     * that are not contained in the netlist are returned as empty blocks.
+     * @param netlist complete content of a KiCad netlist file
+     * @return blocks at the positions INDEX_DESIGN, INDEX_COMPONENTS, INDEX_LIBPARTS, INDEX_LIBRARIES and INDEX_NETS
+     */
+    public static ArrayList<Block> getBlocks(CharSequence netlist){
+    	ArrayList<Block> blockArr = new ArrayList<Block>();
+    	KiCadTokenizer tok = new KiCadTokenizer(netlist);
+    	Block block;
+    	int startIndex, startLine, index;
+    	
+    	for(int i = 0; i < SECTION_NAMES.length; i++){
+    		blockArr.add(new Block());
+    	}//end for(i)
+    	
+    	//all sections are lists inside of the (export ...) list
+    	while(tok.next() != KiCadTokenizer.TOKEN_EOF){
+    		if(tok.getType() == KiCadTokenizer.TOKEN_OPEN && tok.getDepth() == 2){
+    			startIndex = tok.getStart();
+    			startLine = tok.getLine();
+    			tok.next();
+    			
+    			index = -1;
+    			for(int i = 0; i < SECTION_NAMES.length; i++){
+    				if(tok.isAtom(SECTION_NAMES[i])) index = i;
+    			}//end for(i)
+    			
+    			if(tok.getType() != KiCadTokenizer.TOKEN_CLOSE) tok.skipList();
+    			
+    			if(index >= 0){
+    				block = new Block(SECTION_NAMES[index], netlist, startIndex, tok.getEnd());
+    				block.setStart(startLine);
+    				block.setEnd(tok.getLine());
+    				blockArr.set(index, block);
+    			}//end if
+    		}//end if
+    	}//end while
+    	
+    	return blockArr;
     }//end getBlocks()
     
+    /**
+     * Move the tokenizer to the next list that is contained in the currently open list. 
+     * Atoms in between are skipped.
+     * @param tok
+     * @return true = tokenizer is positioned at the first token (name) of the next list, false = currently open list has been closed
+     */
+    private static boolean nextList(KiCadTokenizer tok){
+    	int type;
+    	while((type = tok.next()) != KiCadTokenizer.TOKEN_EOF){
+    		if(type == KiCadTokenizer.TOKEN_CLOSE) return false;
+    		if(type == KiCadTokenizer.TOKEN_OPEN){
+    			type = tok.next();
+    			if(type == KiCadTokenizer.TOKEN_OPEN){
+    				tok.skipList();
+    			}else if(type == KiCadTokenizer.TOKEN_CLOSE){
+    				continue;//empty list
+    			}//end if
+    			return true;
+    		}//end if
+    	}//end while
+    	return false;
+    }//end nextList()
+    
+    /**
+     * Position the tokenizer inside of the section list of a block
+     * @param block
+     * @return
+     */
+    private static KiCadTokenizer openSection(Block block){
+    	KiCadTokenizer tok = block.getTokenizer();
+    	if(tok.next() == KiCadTokenizer.TOKEN_OPEN) tok.next();
+    	return tok;
+    }//end openSection()
+    
 	
 	/**
 	 * Count the occurrence of a char in a string
@@ -195,28 +343,39 @@ public class KiCadParseNetlist {
 	 * @return schematic name extracted from attribute design( (source PATH/SchemName.sch). Returns only SchemName, if not possible return null
 	 */
 	public static String getSchematicName(Block designBlock){
-		String line = designBlock.getText();
+		KiCadTokenizer tok = openSection(designBlock);
+		
+		while(nextList(tok)){
+			if(tok.isAtom(ATOM_SOURCE)){
+				return getSchematicName(tok.readListContent().toString());
+			}//end if
+			tok.skipList();
+		}//end while
+		
+		return null;
+	}//end getSchematicName()
+	
+	/**
+	 * @param source value of the source attribute of the design section (PATH/SchemName.sch)
+	 * @return Returns only SchemName, if not possible return null
+	 */
+	public static String getSchematicName(String source){
 		int startIndex = 0;
 		int endIndex = 0;
 		
-		startIndex = line.indexOf(SOURCE);
-		
-		if(startIndex < 0) return null;
-		 
-		endIndex = findClosingBracket(startIndex, line);
-		String temp = line.substring(startIndex, endIndex);
+		if(source == null) return null;
 		
-		startIndex = temp.lastIndexOf("\\");
+		startIndex = source.lastIndexOf("\\");
 		if(startIndex < 0){
-			startIndex = temp.lastIndexOf("/");
+			startIndex = source.lastIndexOf("/");
 			if(startIndex < 0 )return null;
 		}//end if
 		
-		endIndex = temp.indexOf(SCH, startIndex);
+		endIndex = source.indexOf(SCH, startIndex);
 		
 		if(endIndex < 0) return null;
 		
-		return temp.substring(startIndex+1, endIndex);
+		return source.substring(startIndex+1, endIndex);
 	}//end getSchematicName()
 	
 	/**
@@ -236,83 +395,623 @@ public class KiCadParseNetlist {
 
 
 	/**
-	 * This method extracts the reference,value and field key words out of the net list component block section.
-	 * @param block
-	 * @return null = error; != null ok!
+	 * Parse the complete netlist file and report its content to the visitor
+	 * @param file KiCad netlist file "*.net"
+	 * @param memoryMapped true = map the file into memory, false = read the file into memory
+	 * @param visitor receives the netlist content
+	 * @throws CloseProgramException
 	 */
-	public static ArrayList<KiCadDataHelper> processComponentsBlock(Block componentsBlock){
-		ArrayList<KiCadDataHelper> retList = new ArrayList<KiCadDataHelper>();
-		KiCadDataHelper helper = new KiCadDataHelper();
-		KiCadField field = new KiCadField();
+	public static void visitNetlist(File file, boolean memoryMapped, NetlistVisitor visitor) throws CloseProgramException{
+		if(memoryMapped){
+			visitNetlist(mapNetlist(file), visitor);
+		}else{
+			visitNetlist(readNetlist(file), visitor);
+		}//end if
+	}//end visitNetlist()
+	
+	/**
+	 * Parse the netlist content in one pass and report all sections to the visitor in the order 
+	 * they appear in the netlist
+	 * @param netlist complete content of a KiCad netlist file
+	 * @param visitor receives the netlist content
+	 * @throws CloseProgramException
+	 */
+	public static void visitNetlist(CharSequence netlist, NetlistVisitor visitor) throws CloseProgramException{
+		KiCadTokenizer tok = new KiCadTokenizer(netlist);
 		
-		int index = 0;
-		int endIndex = 0;
-		int indexName= 0;
-		int indexComp = 0;
-		int indexCloseComp = 0;
-		String line = componentsBlock.getText();
-		String ref = "";
-		String value = "";
-		
-		int indexField =  0;
+		while(tok.next() != KiCadTokenizer.TOKEN_EOF){
+			if(tok.getType() == KiCadTokenizer.TOKEN_OPEN && tok.getDepth() == 2){
+				tok.next();
+				if(tok.isAtom(SECTION_NAMES[INDEX_DESIGN])){
+					visitDesign(tok, visitor);
+				}else if(tok.isAtom(SECTION_NAMES[INDEX_COMPONENTS])){
+					visitComponents(tok, visitor);
+				}else if(tok.isAtom(SECTION_NAMES[INDEX_LIBPARTS])){
+					visitLibparts(tok, visitor);
+				}else if(tok.isAtom(SECTION_NAMES[INDEX_NETS])){
+					visitNets(tok, visitor);
+				}else if(tok.getType() != KiCadTokenizer.TOKEN_CLOSE){
+					tok.skipList();
+				}//end if
+			}//end if
+		}//end while
+	}//end visitNetlist()
+	
+	/**
+	 * Same as visitNetlist(File, boolean, NetlistVisitor) but the components, libparts and nets sections are parsed 
+	 * concurrently, see visitNetlistParallel(CharSequence, NetlistVisitor, ForkJoinPool)
+	 * @param file KiCad netlist file
+	 * @param memoryMapped true = map the netlist file into memory, false = read the netlist file
+	 * @param visitor receives the netlist content
+	 * @param pool pool that parses the sections
+	 * @throws CloseProgramException
+	 */
+	public static void visitNetlistParallel(File file, boolean memoryMapped, NetlistVisitor visitor, ForkJoinPool pool) throws CloseProgramException{
+		if(memoryMapped){
+			visitNetlistParallel(mapNetlist(file), visitor, pool);
+		}else{
+			visitNetlistParallel(readNetlist(file), visitor, pool);
+		}//end if
+	}//end visitNetlistParallel()
+	
+	/**
+	 * Find the section boundaries of the netlist and parse the components, libparts and nets sections concurrently.
+	 * The method returns after all sections have been parsed.
+	 * The callbacks of one section are always called by one thread in the order of the netlist, but callbacks of different 
+	 * sections can be called at the same time. The visitor must therefore keep the data of each section separate, 
+	 * like KiCadVhdlBuilder does. onDesign() is called by the calling thread before the other sections are parsed.  
+	 * @param netlist complete content of a KiCad netlist file
+	 * @param visitor receives the netlist content
+	 * @param pool pool that parses the sections
+	 * @throws CloseProgramException if one of the sections could not be parsed
+	 */
+	public static void visitNetlistParallel(CharSequence netlist, NetlistVisitor visitor, ForkJoinPool pool) throws CloseProgramException{
+		ArrayList<Block> blocks = getBlocks(netlist);
+		
+		visitDesign(blocks.get(INDEX_DESIGN), visitor);
+		
+		SectionTask[] tasks = new SectionTask[]{
+				new SectionTask(blocks.get(INDEX_COMPONENTS), INDEX_COMPONENTS, visitor, pool),
+				new SectionTask(blocks.get(INDEX_LIBPARTS), INDEX_LIBPARTS, visitor, pool),
+				new SectionTask(blocks.get(INDEX_NETS), INDEX_NETS, visitor, pool)};
+		
+		for(int i = 0; i < tasks.length; i++){
+			pool.execute(tasks[i]);
+		}//end for(i)
+		for(int i = 0; i < tasks.length; i++){
+			tasks[i].quietlyJoin();//every section has finished before an error is reported
+		}//end for(i)
+		for(int i = 0; i < tasks.length; i++){
+			rethrow(tasks[i].error);
+			if(tasks[i].isCompletedAbnormally()) tasks[i].join();//rethrows errors the task did not catch
+		}//end for(i)
+	}//end visitNetlistParallel()
+	
+	/**
+	 * Rethrow an exception that was caught by a parser task 
+	 * @param error caught exception, null = no error
+	 * @throws CloseProgramException
+	 */
+	private static void rethrow(Exception error) throws CloseProgramException{
+		if(error instanceof CloseProgramException) throw (CloseProgramException)error;
+		if(error instanceof RuntimeException) throw (RuntimeException)error;
+	}//end rethrow()
+	
+	/**
+	 * Parses one section of the netlist on a fork join pool
+	 */
+	private static class SectionTask extends RecursiveAction{
+		private static final long serialVersionUID = 1L;
+		
+		private Block block;
+		private int section;
+		private NetlistVisitor visitor;
+		private ForkJoinPool pool;
+		private Exception error = null;
+		
+		SectionTask(Block block, int section, NetlistVisitor visitor, ForkJoinPool pool){
+			this.block = block;
+			this.section = section;
+			this.visitor = visitor;
+			this.pool = pool;
+		}//end constructor
+		
+		@Override
+		protected void compute(){
+			try{
+				if(section == INDEX_COMPONENTS){
+					visitComponents(block, visitor);
+				}else if(section == INDEX_LIBPARTS){
+					visitLibparts(block, visitor);
+				}else if(section == INDEX_NETS){
+					visitNetsParallel(block, visitor, pool);//the task can also be executed by the thread that joins it
+				}//end if
+			}catch(CloseProgramException e){
+				error = e;
+			}catch(RuntimeException e){
+				error = e;
+			}//end catch
+		}//end compute()
+	}//end class SectionTask
+	
+	/**
+	 * Report the source of a design block to the visitor 
+	 * @param designBlock
+	 * @param visitor
+	 * @throws CloseProgramException
+	 */
+	public static void visitDesign(Block designBlock, NetlistVisitor visitor) throws CloseProgramException{
+		visitDesign(openSection(designBlock), visitor);
+	}//end visitDesign()
+	
+	private static void visitDesign(KiCadTokenizer tok, NetlistVisitor visitor) throws CloseProgramException{
+		while(nextList(tok)){
+			if(tok.isAtom(ATOM_SOURCE)){
+				visitor.onDesign(tok.readListContent());
+			}else{
+				tok.skipList();
+			}//end if
+		}//end while
+	}//end visitDesign()
+	
+	/**
+	 * Report all components and their fields of a components block to the visitor
+	 * @param componentsBlock
+	 * @param visitor
+	 * @throws CloseProgramException
+	 */
+	public static void visitComponents(Block componentsBlock, NetlistVisitor visitor) throws CloseProgramException{
+		visitComponents(openSection(componentsBlock), visitor);
+	}//end visitComponents()
+	
+	private static void visitComponents(KiCadTokenizer tok, NetlistVisitor visitor) throws CloseProgramException{
+		CharSequence ref = null;
+		CharSequence value = null;
+		CharSequence fieldName = null;
+		ArrayList<CharSequence> fields = new ArrayList<CharSequence>();//name and value of all fields of the current component
 
-		String fieldName = "";
-		String fieldValue = "";
+		while(nextList(tok)){//find all (comp definitions
+			if(!tok.isAtom(ATOM_COMP)){
+				tok.skipList();
+				continue;
+			}//end if
+			
+			ref = null;
+			value = null;
+			fields.clear();
+			
+			while(nextList(tok)){
+				if(tok.isAtom(ATOM_REF)){
+					ref = cleanName(tok.readListContent());
+				}else if(tok.isAtom(ATOM_VALUE)){
+					value = cleanName(tok.readListContent());
+				}else if(tok.isAtom(ATOM_FIELDS)){
+					//extract all field values. Those fields can contain generic parameters for instance
+					while(nextList(tok)){
+						if(!tok.isAtom(ATOM_FIELD)){
+							tok.skipList();
+							continue;
+						}//end if
+						
+						fieldName = "";
+						if(nextList(tok)){
+							if(tok.isAtom(ATOM_NAME)){
+								fieldName = removeQuotes(tok.readListContent());//name attribute of current selected field
+							}else{
+								tok.skipList();
+							}//end if
+						}//end if
+						
+						//everything behind the name is the value of the field
+						fields.add(fieldName);
+						fields.add(cleanFieldValue(tok.readListContent()));
+					}//end while
+				}else{
+					tok.skipList();
+				}//end if
+			}//end while
+			
+			visitor.onComponent(ref, value);
+			for(int i = 0; i < fields.size(); i += 2){
+				visitor.onField(fields.get(i), fields.get(i+1));
+			}//end for(i)
+		}//end while
+	}//end visitComponents()
+	
+	/**
+	 * Report all libparts and their pins of a libparts block to the visitor
+	 * @param libpartsBlock
+	 * @param visitor
+	 * @throws CloseProgramException
+	 */
+	public static void visitLibparts(Block libpartsBlock, NetlistVisitor visitor) throws CloseProgramException{
+		visitLibparts(openSection(libpartsBlock), visitor);
+	}//end visitLibparts()
+	
+	private static void visitLibparts(KiCadTokenizer tok, NetlistVisitor visitor) throws CloseProgramException{
+		CharSequence value = "";
+		CharSequence pinName = "";
+		CharSequence type = "";
+		int pinNo = 0;
+		boolean reported = false;
 
-		indexComp = line.indexOf(COMP);
-		
-		while(indexComp >= 0){//find all (comp definitions
-			helper = new KiCadDataHelper();//make sure that always a new object is created
+		while(nextList(tok)){//Pins and field of one component
+			if(!tok.isAtom(ATOM_LIBPART)){
+				tok.skipList();
+				continue;
+			}//end if
+			
+			value = "";
+			reported = false;
+			while(nextList(tok)){
+				if(tok.isAtom(ATOM_PART)){
+					//Get reference value
+					value = cleanName(tok.readListContent());//value contains here the component name to which the following information belong to
+				}else if(tok.isAtom(ATOM_PINS)){
+					if(!reported){
+						visitor.onLibpart(value);
+						reported = true;
+					}//end if
+					
+					//find pins
+					while(nextList(tok)){//extract all pin components
+						if(!tok.isAtom(ATOM_PIN)){
+							tok.skipList();
+							continue;
+						}//end if
+						
+						pinNo = -1;
+						pinName = "";
+						type = "";
+						
+						while(nextList(tok)){
+							if(tok.isAtom(ATOM_NUM)){//number
+								pinNo = parseInt(tok.readListContent(), -1);
+							}else if(tok.isAtom(ATOM_NAME)){//name
+								pinName = removeQuotes(tok.readListContent());
+							}else if(tok.isAtom(ATOM_TYPE)){//type
+								type = tok.readListContent();
+							}else{
+								tok.skipList();
+							}//end if
+						}//end while
+						
+						visitor.onLibpartPin(value, pinNo, pinName, type);
+					}//end while
+				}else{
+					tok.skipList();
+				}//end if
+			}//end while
 			
-			indexCloseComp = findBlockEnd(indexComp, line); //get the end of the current comp definition
-			//get the reference value and add it to component object
-			index = line.indexOf(REF, indexComp);
-			if(index < 0) return null;	//reference not found
-		    endIndex = findBlockEnd(index, line);//line.indexOf(')', index);
-			ref = line.substring(index+REF.length(), endIndex);
-			ref = ref.replace('"', ' ').trim();
-			helper.setRefference(ref);
+			if(!reported) visitor.onLibpart(value);
+		}//end while
+	}//end visitLibparts()
+	
+	/**
+	 * Report all nets and their nodes of a nets block to the visitor
+	 * @param netsBlock
+	 * @param visitor
+	 * @throws CloseProgramException
+	 */
+	public static void visitNets(Block netsBlock, NetlistVisitor visitor) throws CloseProgramException{
+		visitNets(openSection(netsBlock), visitor);
+	}//end visitNets()
+	
+	/**
+	 * Report all nets of a nets block to the visitor, the nets block is split into chunks of complete nets that are 
+	 * parsed concurrently. All callbacks are called by the calling thread in the order of the netlist, therefore 
+	 * the net indexes are the same as with visitNets(Block, NetlistVisitor).
+	 * @param netsBlock
+	 * @param visitor
+	 * @param pool pool that parses the chunks
+	 * @throws CloseProgramException
+	 */
+	public static void visitNetsParallel(Block netsBlock, NetlistVisitor visitor, ForkJoinPool pool) throws CloseProgramException{
+		ArrayList<NetChunkTask> chunks = new ArrayList<NetChunkTask>();
+		AtomicBoolean stopped = new AtomicBoolean(false);
+		
+		try{
+			KiCadTokenizer tok = openSection(netsBlock);
+			int chunkSize = Math.max(NETS_MIN_CHUNK_SIZE, netsBlock.getLength() / (pool.getParallelism() * NETS_CHUNKS_PER_WORKER));//several chunks per worker
+			int chunkStart = tok.getEnd();
+			int chunkLine = tok.getLine();
+			int netIndex = 0;
+			int firstNet = 0;
 			
-			//get the value attribute
-			index = line.indexOf(VALUE, endIndex+1);
-			if(index < 0) return null;	//value not found
-			endIndex = findBlockEnd(index, line);
-			value = line.substring(index+VALUE.length(), endIndex);
-			value = value.replace('"', ' ').trim();
-			helper.setValue(value);
+			//boundary scan: only skip over the nets, the content of the nets is parsed by the chunk tasks 
+			while(nextList(tok)){
+				if(tok.isAtom(ATOM_NET)) netIndex++;
+				tok.skipList();
 
-			//extract all field values. Those fields can contain generic parameters for instance
-			indexField = line.indexOf(FIELD, endIndex);
-			while(indexField >= 0 && indexField < indexCloseComp){			
-				//name
-				indexName = line.indexOf(NAME, indexField);
-				endIndex = findBlockEnd(indexName, line);//findClosingBracket(indexName, line);
-				fieldName = line.substring(indexName+NAME.length(), endIndex).replaceAll("\"", "").trim();//name attribute of current selected field
-				
-				//value
-				indexName = endIndex;
-				endIndex = findBlockEnd(indexField, line );
-				fieldValue = line.substring(indexName+2, endIndex).trim();//.replaceAll("\"", "").trim();//value attribute of current selected field
-				int tempLenght = fieldValue.length();
-				fieldValue = fieldValue.replaceAll("^\"", "");
-				
-				if(tempLenght > fieldValue.length()){//remove last "
-					fieldValue = fieldValue.replaceAll("\"$", "");
+				if(tok.getEnd() - chunkStart >= chunkSize){
+					chunks.add(new NetChunkTask(netsBlock.getTokenizer(chunkStart, tok.getEnd(), chunkLine), firstNet, stopped));
+					pool.execute(chunks.get(chunks.size()-1));
+					chunkStart = tok.getEnd();
+					chunkLine = tok.getLine();
+					firstNet = netIndex;
+				}//end if
+			}//end while
+			if(netIndex > firstNet){
+				chunks.add(new NetChunkTask(netsBlock.getTokenizer(chunkStart, tok.getEnd(), chunkLine), firstNet, stopped));
+				pool.execute(chunks.get(chunks.size()-1));
+			}//end if
+			
+			//report the buffered nets in the original order
+			for(int i = 0; i < chunks.size(); i++){
+				chunks.get(i).join();
+				rethrow(chunks.get(i).error);
+				if(!stopped.get()) chunks.get(i).replay(visitor);//after a failure the chunk can be empty, the failed chunk is rethrown later
+				chunks.set(i, null);
+			}//end for(i)
+		}finally{
+			//after an error no chunk may still be running when the exception leaves this method
+			stopped.set(true);//chunks that have not started are not parsed anymore
+			for(int i = 0; i < chunks.size(); i++){
+				if(chunks.get(i) != null) chunks.get(i).quietlyJoin();
+			}//end for(i)
+		}//end try
+	}//end visitNetsParallel()
+	
+	/**
+	 * Parses a chunk of complete nets on a fork join pool and buffers the nodes until they are reported to the 
+	 * visitor of the nets section
+	 */
+	private static class NetChunkTask extends RecursiveAction{
+		private static final long serialVersionUID = 1L;
+		
+		private KiCadTokenizer tok;
+		private int firstNet;
+		private Exception error = null;
+		private AtomicBoolean stopped;
+		
+		private CharSequence[] references = new CharSequence[256];
+		private int[] pins = new int[256];
+		private int[] netNodeCount = new int[64];
+		private CharSequence[] netNames = new CharSequence[64];
+		private int nodeCount = 0;
+		private int netCount = 0;
+		
+		NetChunkTask(KiCadTokenizer tok, int firstNet, AtomicBoolean stopped){
+			this.tok = tok;
+			this.firstNet = firstNet;
+			this.stopped = stopped;
+		}//end constructor
+		
+		@Override
+		protected void compute(){
+			if(stopped.get()){//another chunk has failed
+				tok = null;
+				return;
+			}//end if
+			try{
+				visitNets(tok, new NetlistVisitorAdapter(){
+					@Override
+					public void onNetName(int netIndex, CharSequence name){
+						if(netCount == netNames.length){
+							netNames = Arrays.copyOf(netNames, netCount * 2);
+						}//end if
+						netNames[netCount] = name;
+					}//end onNetName()
+					
+					@Override
+					public void onNetNode(int netIndex, CharSequence ref, int pin){
+						if(nodeCount == pins.length){
+							references = Arrays.copyOf(references, nodeCount * 2);
+							pins = Arrays.copyOf(pins, nodeCount * 2);
+						}//end if
+						references[nodeCount] = ref;
+						pins[nodeCount] = pin;
+						nodeCount++;
+					}//end onNetNode()
+					
+					@Override
+					public void onNetEnd(int netIndex, int count){
+						if(netCount == netNodeCount.length){
+							netNodeCount = Arrays.copyOf(netNodeCount, netCount * 2);
+						}//end if
+						if(netCount == netNames.length){
+							netNames = Arrays.copyOf(netNames, netCount * 2);
+						}//end if
+						netNodeCount[netCount++] = count;
+					}//end onNetEnd()
+				}, firstNet);
+			}catch(CloseProgramException e){
+				error = e;
+				stopped.set(true);
+			}catch(RuntimeException e){
+				error = e;
+				stopped.set(true);
+			}//end catch
+			tok = null;
+		}//end compute()
+		
+		void replay(NetlistVisitor visitor) throws CloseProgramException{
+			int node = 0;
+			for(int net = 0; net < netCount; net++){
+				if(netNames[net] != null) visitor.onNetName(firstNet + net, netNames[net]);
+				for(int i = 0; i < netNodeCount[net]; i++){
+					visitor.onNetNode(firstNet + net, references[node], pins[node]);
+					node++;
+				}//end for(i)
+				visitor.onNetEnd(firstNet + net, netNodeCount[net]);
+			}//end for(net)
+		}//end replay()
+	}//end class NetChunkTask
+	
+	private static void visitNets(KiCadTokenizer tok, NetlistVisitor visitor) throws CloseProgramException{
+		visitNets(tok, visitor, 0);
+	}//end visitNets()
+	
+	private static void visitNets(KiCadTokenizer tok, NetlistVisitor visitor, int firstNet) throws CloseProgramException{
+		CharSequence reference = null;
+		int pinNo = -1;
+		int netIndex = firstNet;
+		int nodeCount = 0;
+		
+		while(nextList(tok)){//iterate over all nets
+			if(!tok.isAtom(ATOM_NET)){
+				tok.skipList();
+				continue;
+			}//end if
+			
+			nodeCount = 0;
+			while(nextList(tok)){//Iterate over all nodes of a net
+				if(tok.isAtom(ATOM_NAME)){
+					visitor.onNetName(netIndex, tok.readListContent());
+					continue;
+				}//end if
+				if(!tok.isAtom(ATOM_NODE)){
+					tok.skipList();
+					continue;
 				}//end if
 				
-				field.setName(fieldName);
-				field.setValue(fieldValue);
-				helper.addField(field);
-				indexField = line.indexOf(FIELD, endIndex+2);
-				field = new KiCadField();
+				reference = null;
+				pinNo = -1;
+				while(nextList(tok)){
+					if(tok.isAtom(ATOM_REF)){//get reference 
+						reference = tok.readListContent();
+					}else if(tok.isAtom(ATOM_PIN)){//get pin number 
+						pinNo = Integer.parseInt(tok.readListContent().toString());
+					}else{
+						tok.skipList();
+					}//end if
+				}//end while
 				
+				visitor.onNetNode(netIndex, reference, pinNo);
+				nodeCount++;
 			}//end while
 			
-			indexComp = line.indexOf(COMP, indexComp+1);
-			retList.add(helper);
-			
-		}//end while indexComp
+			visitor.onNetEnd(netIndex, nodeCount);
+			netIndex++;
+		}//end while
+	}//end visitNets()
+	
+	/**
+	 * Parse an integer value without creating a string
+	 * @param value
+	 * @param defaultValue returned if value is not an integer
+	 * @return
+	 */
+	private static int parseInt(CharSequence value, int defaultValue){
+		int result = 0;
+		int i = 0;
+		boolean negative = false;
 		
+		if(value.length() == 0) return defaultValue;
+		if(value.charAt(0) == '-' || value.charAt(0) == '+'){
+			negative = value.charAt(0) == '-';
+			i++;
+			if(value.length() == 1) return defaultValue;
+		}//end if
+		
+		if(value.length() - i > 9){//might not fit into an integer
+			try {
+				return Integer.parseInt(value.toString());
+			} catch (NumberFormatException e) {
+				return defaultValue;
+			}
+		}//end if
+		
+		for(; i < value.length(); i++){
+			char c = value.charAt(i);
+			if(c < '0' || c > '9') return defaultValue;
+			result = result * 10 + (c - '0');
+		}//end for(i)
+		
+		return negative ? -result : result;
+	}//end parseInt()
+	
+	/**
+	 * Removes all quotes and leading and trailing white spaces
+	 * @param value
+	 * @return
+	 */
+	private static CharSequence cleanName(CharSequence value){
+		if(!contains(value, '"')) return value;
+		return value.toString().replace('"', ' ').trim();
+	}//end cleanName()
+	
+	/**
+	 * Removes all quotes and leading and trailing white spaces. Other than cleanName() the quotes are
+	 * not replaced by white spaces.
+	 * @param value
+	 * @return
+	 */
+	private static CharSequence removeQuotes(CharSequence value){
+		if(!contains(value, '"')) return value;
+		return value.toString().replaceAll("\"", "").trim();
+	}//end removeQuotes()
+	
+	/**
+	 * Remove a leading quote of a field value and in that case also the trailing quote
+	 * @param value
+	 * @return
+	 */
+	private static CharSequence cleanFieldValue(CharSequence value){
+		if(value.length() == 0 || value.charAt(0) != '"') return value;
+		if(value.length() > 1 && value.charAt(value.length()-1) == '"'){
+			return value.subSequence(1, value.length()-1);
+		}//end if
+		return value.subSequence(1, value.length());
+	}//end cleanFieldValue()
+	
+	private static boolean contains(CharSequence value, char c){
+		for(int i = 0; i < value.length(); i++){
+			if(value.charAt(i) == c) return true;
+		}//end for(i)
+		return false;
+	}//end contains()
+
+	/**
+	 * This method extracts the reference,value and field key words out of the net list component block section.
+	 * @param block
+	 * @return null = error; != null ok!
+	 */
+	public static ArrayList<KiCadDataHelper> processComponentsBlock(Block componentsBlock){
+		return processComponentsBlock(componentsBlock, new SymbolTable());
+	}//end extractComponents()
+	
+	/**
+	 * Same as processComponentsBlock(Block) but references and values are stored in the given symbol table
+	 * @param componentsBlock
+	 * @param symbols
+	 * @return null = error; != null ok!
+	 */
+	public static ArrayList<KiCadDataHelper> processComponentsBlock(Block componentsBlock, final SymbolTable symbols){
+		final ArrayList<KiCadDataHelper> retList = new ArrayList<KiCadDataHelper>();
+		final boolean[] error = {false};
+		
+		try {
+			visitComponents(componentsBlock, new NetlistVisitorAdapter() {
+				@Override
+				public void onComponent(CharSequence ref, CharSequence value){
+					if(ref == null || value == null){//reference or value not found
+						error[0] = true;
+						return;
+					}//end if
+					
+					KiCadDataHelper helper = new KiCadDataHelper();
+					helper.setSymbolIds(symbols.getId(ref), symbols.getId(value));
+					helper.setRefference(symbols.getSymbol(helper.getRefferenceId()));
+					helper.setValue(symbols.getSymbol(helper.getValueId()));
+					retList.add(helper);
+				}//end onComponent()
+				
+				@Override
+				public void onField(CharSequence name, CharSequence value){
+					if(error[0]) return;
+					
+					KiCadField field = new KiCadField();
+					field.setName(name.toString());
+					field.setValue(value.toString());
+					retList.get(retList.size()-1).addField(field);
+				}//end onField()
+			});
+		} catch (CloseProgramException e) {
+			return null;
+		}//end try
+		
+		if(error[0]) return null;
 		return retList;
 	}//end extractComponents()
 	
@@ -351,6 +1050,48 @@ public class KiCadParseNetlist {
 
 	
 
+	/**
+	 * Create a pin out of the pin information of a libpart. The vector size of the pin is
+	 * extracted out of the name, for instance data[8]. 
+	 * @param num pin number
+	 * @param name pin name including an optional vector size
+	 * @param type electrical type of the pin as it is defined in the netlist
+	 * @return
+	 * @throws CloseProgramException
+	 */
+	public static Pin createPin(int num, String name, String type) throws CloseProgramException{
+		Pin pin = new Pin();
+		String pinName = name;
+		
+		String[] pinSizeArr = Component.getParameter(pinName, '[', ']');
+		if(pinSizeArr[0] != null && pinSizeArr[0].equals("err")){
+			InfoAndMessages.showError(COMPONENT_GENERIC_MISSING_CLOSING_BRACKET + " See Pin =" + pinName);
+		}
+
+		pinName = pinSizeArr[1]; //get the name without size values
+		
+		if(pinSizeArr[0] != null){//pin is a vector because it has a size defined
+			pin.setSize(pinSizeArr[0]);
+		}else{
+			pin.setSize("0");
+		}//end if
+		
+		pin.setName(pinName);
+		pin.setNo(num);
+		
+		if(type.equals(INPUT)){
+			pin.setType(Pin.TYPE_IN);
+		}else if(type.equals(OUTPUT)){
+			pin.setType(Pin.TYPE_OUT);
+		}else if(type.equals(INOUT)){
+			pin.setType(Pin.TYPE_INOUT);
+		}else{
+			pin.setType(Pin.UKNOWN);
+		}//end if
+		
+		return pin;
+	}//end createPin()
+
 	/**
 	 * This method extracts the pin information from the netlist block libparts
 	 * and saves the results in the local array list of components. It also sets up the size of
@@ -362,113 +1103,37 @@ public class KiCadParseNetlist {
 	 */	
 
 	public static ArrayList<KiCadLibparts> getPins(Block libpart, boolean upperCase) throws CloseProgramException {
-
-		//first extract all field variables
-		String line = libpart.getText();
-		String temp = "";
-		int indexLibPart =  0;
-		int indexPart =  0;
-		int indexName =  0;
-		int indexPin =  0;
-		int indexClose = 0;
-		int indexCloseLibPart = 0;
-
-		Pin pin = new Pin();
-		int pinNo = 0;
-		String pinName = "";
-		ArrayList<KiCadLibparts> libparts = new ArrayList<KiCadLibparts>();
-		ArrayList<Pin> pins = new ArrayList<Pin>();
-		String value = "";
-
+		return getPins(libpart, upperCase, new SymbolTable());
+	}//end setpinField(Block libpart )
+	
+	/**
+	 * Same as getPins(Block, boolean) but libpart values and pin names are stored in the given symbol table
+	 * @param libpart libpart section of the KiCad netlist
+	 * @param upperCase use upper or lower case vhld keywords
+	 * @param symbols
+	 * @return
+	 * @throws CloseProgramException
+	 */
+	public static ArrayList<KiCadLibparts> getPins(Block libpart, boolean upperCase, final SymbolTable symbols) throws CloseProgramException {
+		final ArrayList<KiCadLibparts> libparts = new ArrayList<KiCadLibparts>();
 		
-
-		indexLibPart = line.indexOf(LIBPART); 
-		while(indexLibPart >= 0){//Pins and field of one component
-			//extract part1
-			indexCloseLibPart = findBlockEnd(indexLibPart, line);
-			indexPart = line.indexOf(PART,indexLibPart);
-			if(indexPart >= 0){
-				indexClose = findBlockEnd(indexPart, line);
-				
-				//Get reference value
-				temp = line.substring(indexPart+PART.length(), indexClose).replace('"', ' ').trim();//temp contains here the component name to which the following information belong to
-				value = temp;
-				
-					//find pins
-					pin = new Pin();
-					indexPin = line.indexOf(PIN, indexPart);//find first pin after libparts block has been opened
-					while(indexPin >= 0 && indexPin <= indexCloseLibPart ){//extract all pin components
-						//number
-						indexName = line.indexOf(NUM, indexPin);//find first pin number
-						indexClose = findBlockEnd(indexName, line);
-						
-						try {
-							pinNo = Integer.parseInt(line.substring(indexName+NUM.length(), indexClose));
-						} catch (NumberFormatException e) {
-							pinNo = -1;
-						}
+		visitLibparts(libpart, new NetlistVisitorAdapter() {
+			@Override
+			public void onLibpart(CharSequence part){
+				KiCadLibparts temp = new KiCadLibparts(symbols.intern(part), new ArrayList<Pin>());
+				temp.setValueId(symbols.getId(part));
+				libparts.add(temp);
+			}//end onLibpart()
 			
-						//name
-						indexName = line.indexOf(NAME, indexClose);
-						indexClose = findBlockEnd(indexName, line);
-						//temp = line.substring(indexName+NAME.length(), indexClose);//name attribute of current selected field
-						pinName = line.substring(indexName+NAME.length(), indexClose);
-						pinName = pinName.replaceAll("\"", "").trim();
-						
-						//extract datatype of signal
-						//String[] datatype = Component.getParameter(pinName, '(', ')');
-						
-						
-						//if(datatype[0] != null && datatype[0].equals("err")){
-						//	InfoAndMessages.showError(COMPONENT_GENERIC_MISSING_CLOSING_BRACKET + " See Pin =" + pinName);
-						//}
-						
-						
-						String[] pinSizeArr = Component.getParameter(pinName, '[', ']');
-						if(pinSizeArr[0] != null && pinSizeArr[0].equals("err")){
-							InfoAndMessages.showError(COMPONENT_GENERIC_MISSING_CLOSING_BRACKET + " See Pin =" + pinName);
-						}
-
-						pinName = pinSizeArr[1]; //get the name without size values
-						
-						if(pinSizeArr[0] != null){//pin is a vector because it has a size defined
-							//pin.setIsVector(true);
-							pin.setSize(pinSizeArr[0]);
-						}else{
-							pin.setSize("0");
-						}//end if
-						
-						//type
-						indexName = line.indexOf(TYPE, indexClose);
-						indexClose = findBlockEnd(indexName, line);
-						temp = line.substring(indexName+TYPE.length(), indexClose);//value attribute of current selected field
-						
-						//save pin in components that all have the same name
-						pin.setName(pinName);
-						pin.setNo(pinNo);
-						
-						if(temp.equals(INPUT)){
-							pin.setType(Pin.TYPE_IN);
-						}else if(temp.equals(OUTPUT)){
-							pin.setType(Pin.TYPE_OUT);
-						}else if(temp.equals(INOUT)){
-							pin.setType(Pin.TYPE_INOUT);
-						}else{
-							pin.setType(Pin.UKNOWN);
-						}//end if
-							
-						pins.add(pin);
-						indexPin = line.indexOf(PIN, indexClose+1);
-						pin = new Pin();
-						
-					}//end while
-			}//end if
-			
-			//search for another components libpart
-			indexLibPart = line.indexOf(LIBPART, indexClose+1); 
-			libparts.add(new KiCadLibparts(value, pins));
-			pins = new ArrayList<Pin>();
-		}//end while
+			@Override
+			public void onLibpartPin(CharSequence part, int num, CharSequence name, CharSequence type) throws CloseProgramException{
+				Pin pin = createPin(num, name.toString(), type.toString());
+				pin.setNameId(symbols.getId(pin.getName()));
+				pin.setName(symbols.getSymbol(pin.getNameId()));
+				libparts.get(libparts.size()-1).addPin(pin);
+			}//end onLibpartPin()
+		});
+		
 		return libparts;
 	}//end setpinField(Block libpart )
 
@@ -478,59 +1143,39 @@ public class KiCadParseNetlist {
 	 * @return
 	 */
 	public static ArrayList<KiCadNet> getNets(Block nets){
-		int indexNode = 0;
-		int indexOpen = 0;
-		int indexClose = 0;
-		int indexNet = 0;
-		int indexEndNet = 0;
+		return getNets(nets, new SymbolTable());
+	}//end getNets()
 	
-		int pinNo = -1;
-		
-		String temp = "";
-		String reference = "";
-		String line = nets.getText();
-		
-		ArrayList<KiCadNet> netList = new ArrayList<KiCadNet>();
-		KiCadNet tempNet = new KiCadNet();
+	/**
+	 * Same as getNets(Block) but the node references are stored in the given symbol table
+	 * @param nets
+	 * @param symbols
+	 * @return
+	 */
+	public static ArrayList<KiCadNet> getNets(Block nets, final SymbolTable symbols){
+		final ArrayList<KiCadNet> netList = new ArrayList<KiCadNet>();
 		
-		//net
-		indexNet = line.indexOf(NET);
-		while(indexNet >= 0){//iterate over all nets
-
-			indexEndNet = findBlockEnd(indexNet, line);
-			indexNode = line.indexOf(NODE, indexNet);
-			
-			//node processing
-			while(indexNode >= 0 && indexNode < indexEndNet ){//Iterate over all nodes of a net
-				
-
-				//get reference 
-				indexOpen = line.indexOf(REF, indexNode);
-				indexClose = findClosingBracket(indexOpen, line);
-				reference = line.substring(indexOpen+REF.length(), indexClose);
-
+		try {
+			visitNets(nets, new NetlistVisitorAdapter() {
+				private KiCadNet tempNet = new KiCadNet();
 				
-				//get pin number 
-				indexOpen = line.indexOf(PIN, indexClose);
-				indexClose = findClosingBracket(indexOpen, line);
-				temp = line.substring(indexOpen + PIN.length(), indexClose);
-				pinNo = Integer.parseInt(temp);
+				@Override
+				public void onNetNode(int netIndex, CharSequence ref, int pin){
+					int refId = symbols.getId(ref);
+					tempNet.addReferencePin(symbols.getSymbol(refId), refId, pin);
+				}//end onNetNode()
 				
-				tempNet.addReferencePin(reference, pinNo);
-				indexNode = line.indexOf(NODE, indexClose);		
-					
-			}//end while
-			
-			netList.add(tempNet);
-			tempNet = new KiCadNet();
-			indexNet = line.indexOf(NET, indexEndNet); 
-		}//end while
+				@Override
+				public void onNetEnd(int netIndex, int nodeCount){
+					netList.add(tempNet);
+					tempNet = new KiCadNet();
+				}//end onNetEnd()
+			});
+		} catch (CloseProgramException e) {
+			return null;
+		}//end try
 		
 		return netList;
 	}//end getNets()
 	
-	
-
-	
-	
 }//end class
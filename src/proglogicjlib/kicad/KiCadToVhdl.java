@@ -29,34 +29,225 @@ ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
 SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 /**
- * This class contains methods that can transform a Kicad netlist file into VHDL source code
+ * This class contains methods that can transform a Kicad netlist file into VHDL source code.
+ * <p>
+ * Conversions are reentrant: every conversion keeps its state in local objects and in its ConversionResult, 
+ * the shared tables (templates, keywords) are read only after they have been loaded. Concurrent calls of 
+ * netlistToVhdl() on separate converters, or of convertNetlist() on one converter, are safe as long as they write 
+ * different VHDL files and the options are not changed meanwhile. They do not wait for each other apart from short 
+ * locks when the manifest or the render cache file is written, so they scale with the number of processors. 
+ * Errors are thrown to the calling thread, only netlistToVhdl() shows them in a dialog, see setShowDialogs().
  */
 package com.proglogicjlib.kicad;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
 
+import com.proglogicjlib.data.SymbolTable;
 import com.proglogicjlib.misc.CloseProgramException;
+import com.proglogicjlib.misc.ConversionMonitor;
 import com.proglogicjlib.misc.InfoAndMessages;
+import com.proglogicjlib.misc.ProgressListener;
 import com.proglogicjlib.misc.WarningException;
+import com.proglogicjlib.vhdl.ConnectivityGraph;
+import com.proglogicjlib.vhdl.VhdlBusInference;
 import com.proglogicjlib.vhdl.VhdlComponent;
 import com.proglogicjlib.vhdl.VhdlFile;
 import com.proglogicjlib.vhdl.VhdlGeneric;
+import com.proglogicjlib.vhdl.VhdlNet;
 import com.proglogicjlib.vhdl.VhdlPin;
+import com.proglogicjlib.vhdl.VhdlRenderCache;
 import com.proglogicjlib.vhdl.components.VhdlTopLevel;
 
 public class KiCadToVhdl {
-	private static String GENERIC_START_TOKEN = "G_";
-	private static String SIGNAL_NAME_FIELD = "SignalName";
-	private static String TOP_LEVEL_INPUT_COMP = "TOP_IN";
-	private static String TOP_LEVEL_OUTPUT_COMP = "TOP_OUT";
+	private static final String GENERIC_START_TOKEN = "G_";
+	private static final String SIGNAL_NAME_FIELD = "SignalName";
+	private static final String TOP_LEVEL_INPUT_COMP = "TOP_IN";
+	private static final String TOP_LEVEL_OUTPUT_COMP = "TOP_OUT";
 	
-	private static String KICAD_TO_VHDL_ERR_ID0 = "KiCadToVhdl_000";
-	private static String KICAD_TO_VHDL_ERR_ID1 = "KiCadToVhdl_001";
-	private static String KICAD_TO_VHDL_ERR_ID2 = "KiCadToVhdl_002";
+	private static final String KICAD_TO_VHDL_ERR_ID0 = "KiCadToVhdl_000";
+	private static final String KICAD_TO_VHDL_ERR_ID1 = "KiCadToVhdl_001";
+	private static final String KICAD_TO_VHDL_ERR_ID2 = "KiCadToVhdl_002";
+	
+	private boolean memoryMappedInput = false;
+	private boolean parallelParsing = true;
+	private boolean parallelRendering = true;
+	private int generateMinInstances = 0;
+	private boolean busInference = false;
+	private boolean pruneDeadLogic = false;
+	private VhdlRenderCache renderCache = null;
+	private boolean incremental = false;
+	private int overwritePolicy = VhdlFile.OVERWRITE_ASK;
+	private boolean showDialogs = true;
+	
+	/**Results of the last call of netlistToVhdl(), every conversion keeps its state in its own result*/
+	private volatile ConversionResult lastResult = new ConversionResult(null);
+	
+	/**
+	 * Select how the netlist file is read. Memory mapped input is recommended for very large netlist files, because
+	 * the netlist is parsed directly on the mapped file instead of being copied onto the heap.
+	 * @param memoryMappedInput true = map the netlist file into memory, false = read the netlist file (default)
+	 */
+	public void setMemoryMappedInput(boolean memoryMappedInput){this.memoryMappedInput = memoryMappedInput;}
+	
+	/**
+	 * @return true if netlist files are mapped into memory
+	 */
+	public boolean getMemoryMappedInput(){return this.memoryMappedInput;}
+	
+	/**
+	 * Select if the components, libparts and nets sections of the netlist are parsed concurrently on the common fork join pool
+	 * @param parallelParsing true = parse the sections concurrently (default), false = parse the sections one after another
+	 */
+	public void setParallelParsing(boolean parallelParsing){this.parallelParsing = parallelParsing;}
+	
+	/**
+	 * @return true if the netlist sections are parsed concurrently
+	 */
+	public boolean getParallelParsing(){return this.parallelParsing;}
+	
+	/**
+	 * Select if the component instantiations of the VHDL file are rendered concurrently on the common fork join pool.
+	 * The VHDL file is the same in both cases.
+	 * @param parallelRendering true = render concurrently (default), false = render one after another
+	 */
+	public void setParallelRendering(boolean parallelRendering){this.parallelRendering = parallelRendering;}
+	
+	/**
+	 * @return true if the component instantiations are rendered concurrently
+	 */
+	public boolean getParallelRendering(){return this.parallelRendering;}
+	
+	/**
+	 * Code runs of at least generateMinInstances consecutive identical component instances as one for-generate statement
+	 * @param generateMinInstances minimal number of instances of a run, 0 = code every instance on its own (default)
+	 * @see com.proglogicjlib.vhdl.VhdlGenerate
+	 */
+	public void setGenerateMinInstances(int generateMinInstances){this.generateMinInstances = generateMinInstances;}
+	
+	/**
+	 * @return minimal number of instances coded as one for-generate statement, 0 = no for-generate
+	 */
+	public int getGenerateMinInstances(){return this.generateMinInstances;}
+	
+	/**
+	 * Combine the nets of a bus, named like /data[0] to /data[7] in the netlist, to one vector signal data
+	 * @param busInference true = declare one vector signal per bus, false = declare every net on its own (default)
+	 * @see com.proglogicjlib.vhdl.VhdlBusInference
+	 */
+	public void setBusInference(boolean busInference){this.busInference = busInference;}
+	
+	/**
+	 * @return true if the nets of a bus are combined to one vector signal
+	 */
+	public boolean getBusInference(){return this.busInference;}
+	
+	/**
+	 * Remove all components that can not influence any top level output, for instance debug circuits that are
+	 * not connected in a build variant. The removed components are reported by getPrunedComponents(). 
+	 * Designs without top level outputs are not pruned.
+	 * @param pruneDeadLogic true = remove dead logic, false = convert all components (default)
+	 * @see com.proglogicjlib.vhdl.ConnectivityGraph#getLiveComponents()
+	 */
+	public void setPruneDeadLogic(boolean pruneDeadLogic){this.pruneDeadLogic = pruneDeadLogic;}
+	
+	/**
+	 * @return true if dead logic is removed
+	 */
+	public boolean getPruneDeadLogic(){return this.pruneDeadLogic;}
+	
+	/**
+	 * @return references of the components that have been removed as dead logic by the last call of netlistToVhdl()
+	 */
+	public ArrayList<String> getPrunedComponents(){return this.lastResult.getPrunedComponents();}
+	
+	/**
+	 * Take the component instantiations out of a cache that is kept over several conversions. A cache with a file
+	 * is saved after each conversion.
+	 * @param renderCache cache of rendered instantiations, null = render all instantiations (default)
+	 */
+	public void setRenderCache(VhdlRenderCache renderCache){this.renderCache = renderCache;}
+	
+	/**
+	 * @return cache of rendered instantiations, null if none is used
+	 */
+	public VhdlRenderCache getRenderCache(){return this.renderCache;}
+	
+	/**
+	 * Skip conversions whose inputs have not changed. A manifest in the output directory records the inputs of every 
+	 * conversion, see ConversionManifest. A netlist is only converted again if the netlist, the template files, the library 
+	 * version or the conversion options have been changed or the VHDL file has been changed since.
+	 * @param incremental true = skip conversions that are up to date, false = convert every netlist (default)
+	 */
+	public void setIncremental(boolean incremental){this.incremental = incremental;}
+	
+	/**
+	 * @return true if conversions that are up to date are skipped
+	 */
+	public boolean getIncremental(){return this.incremental;}
+	
+	/**
+	 * @return true if the last call of netlistToVhdl() has been skipped because the VHDL file was up to date. 
+	 * The connectivity graph, the signal conflicts and the pruned components are not available in this case.
+	 */
+	public boolean getUpToDate(){return this.lastResult.getUpToDate();}
+	
+	/**
+	 * @return true if the last call of netlistToVhdl() kept an existing VHDL file of different content, the file is outdated then
+	 */
+	public boolean getFileKept(){return this.lastResult.getFileKept();}
+	
+	/**
+	 * Select what happens with an existing VHDL file of different content. OVERWRITE_ASK keeps the file and throws a WarningException if nobody can be asked.
+	 * @param overwritePolicy VhdlFile.OVERWRITE_ASK (default), VhdlFile.OVERWRITE_ALWAYS or VhdlFile.OVERWRITE_NEVER
+	 * @see VhdlFile#setOverwritePolicy(int)
+	 */
+	public void setOverwritePolicy(int overwritePolicy){this.overwritePolicy = overwritePolicy;}
+	public int getOverwritePolicy(){return this.overwritePolicy;}
+	
+	/**
+	 * Select if netlistToVhdl() shows errors and asks before an existing file is replaced in dialogs on the calling thread. 
+	 * Dialogs also need InfoAndMessages.getShowDialogs() and a display. convertNetlist(), netlistsToVhdl() and 
+	 * netlistToVhdlAsync() never show dialogs, their errors only reach the caller.
+	 * @param showDialogs true = show dialogs (default), false = only throw the exceptions
+	 */
+	public void setShowDialogs(boolean showDialogs){this.showDialogs = showDialogs;}
+	public boolean getShowDialogs(){return this.showDialogs;}
 	
 	/**
-	 * This method transforms a KiCad Netlist into VHDL code
+	 * @return absolute path of the VHDL file of the last call of netlistToVhdl(), also if the conversion has been skipped 
+	 * because the file was up to date, null if the file has not been saved
+	 */
+	public String getVhdlFilePath(){return this.lastResult.getVhdlFilePath();}
+	
+	/**
+	 * @return connectivity of the design that has been converted by the last call of netlistToVhdl(), 
+	 * the component indexes refer to the top level components followed by all other components  
+	 */
+	public ConnectivityGraph getConnectivityGraph(){return this.lastResult.getConnectivityGraph();}
+	
+	/**
+	 * @return nets of the last call of netlistToVhdl() that are declared with conflicting datatypes or widths,
+	 * see VhdlSignalTable.getConflicts()
+	 */
+	public ArrayList<String> getSignalConflicts(){return this.lastResult.getSignalConflicts();}
+	
+	/**
+	 * This method transforms a KiCad Netlist into VHDL code. The results are available by the getters of this converter
+	 * until the next call, see convertNetlist() for conversions that share one converter.
 	 * @param kicadNetlist This is the KiCad netlist file you want to convert into VHDL
 	 * @param VhdlPath This is the path to the folder where you want to save your generated VHDL code file. VHDL files will get the same name as the Kicad schematic name
 	 * @param upperCase If true print all VHDL keywords in upper case letters, if false all VHDL keywords are printed in lower case letters
@@ -68,16 +259,54 @@ public class KiCadToVhdl {
 	 */
 	public void netlistToVhdl(File kicadNetlist, String VhdlPath,boolean upperCase, boolean showUnusedInputs, 
                               String defaultDatatype, String defaultGenericDatatType) throws CloseProgramException, WarningException{
+		ConversionResult result = new ConversionResult(kicadNetlist);
+		try {
+			this.convert(result, VhdlPath, upperCase, showUnusedInputs, defaultDatatype, defaultGenericDatatType, ForkJoinPool.commonPool(), true, this.showDialogs, null, null);
+		} catch (CloseProgramException e) {//errors of the pool threads are shown on the calling thread
+			if(this.showDialogs) InfoAndMessages.showErrorDialog(e.getMessage());
+			throw e;
+		} finally {
+			this.lastResult = result;
+		}//end try
+	}//end netlistToVhdl
+	
+	/**
+	 * Same as netlistToVhdl() but the results are returned instead of being kept by the converter and no dialogs are shown. 
+	 * Several threads can call this method of one converter at the same time, see the description of the class.
+	 * @return results of the conversion
+	 * @throws CloseProgramException
+	 * @throws WarningException
+	 */
+	public ConversionResult convertNetlist(File kicadNetlist, String VhdlPath,boolean upperCase, boolean showUnusedInputs, 
+            String defaultDatatype, String defaultGenericDatatType) throws CloseProgramException, WarningException{
+		ConversionResult result = new ConversionResult(kicadNetlist);
+		this.convert(result, VhdlPath, upperCase, showUnusedInputs, defaultDatatype, defaultGenericDatatType, ForkJoinPool.commonPool(), true, false, null, null);
+		return result;
+	}//end convertNetlist()
+	
+	/**
+	 * Convert a netlist, all state of the conversion is kept in local variables and in the result 
+	 * @param result receives the results, it contains the netlist file
+	 * @param pool pool of the parallel parsing and rendering
+	 * @param saveRenderCache false if the render cache is saved by a batch instead of after the conversion
+	 * @param showDialogs true = the user may be asked before an existing file is replaced
+	 * @param monitor progress and cancellation of the conversion, null = none
+	 * @param targets VHDL files of the batch by absolute path and the netlists they are written for, null = no batch
+	 */
+	private void convert(ConversionResult result, String VhdlPath,boolean upperCase, boolean showUnusedInputs, 
+            String defaultDatatype, String defaultGenericDatatType, ForkJoinPool pool, boolean saveRenderCache, boolean showDialogs, ConversionMonitor monitor, 
+			ConcurrentHashMap<String, File> targets) throws CloseProgramException, WarningException{
 		
+		File kicadNetlist = result.getNetlist();
+		long start = System.nanoTime();
 		boolean noRefferenceFound = true;
-		boolean temp_b = false;
 		boolean foundoutput = false;
 		
-		String tempString = "";
 		String topLevelName;
 		
 		int tempPinNo;
 		int tempPinIndex; 
+		int tempRefId;
 		
 		//First create VHDLComponents out of KiCad netlist
 		/*
@@ -89,142 +318,153 @@ public class KiCadToVhdl {
 		 *  Nets (HDL signal name of pins) --> nets section of KiCad net list
 		 *  	
 		 */
-		VhdlComponent tempComp = new VhdlComponent(); 
+		//Skip the conversion if nothing has been changed since the last conversion
+		String inputKey = null;
+		if(this.incremental){
+			try {
+				inputKey = ConversionManifest.getInputKey(kicadNetlist, upperCase, showUnusedInputs, defaultDatatype, defaultGenericDatatType, 
+						this.generateMinInstances, this.busInference, this.pruneDeadLogic);
+				File upToDateFile = ConversionManifest.getUpToDateFile(new File(VhdlPath), kicadNetlist, inputKey);
+				if(upToDateFile != null){
+					KiCadToVhdl.reserveTarget(targets, upToDateFile, kicadNetlist);
+					result.setUpToDate(true);
+					result.setVhdlFilePath(upToDateFile.getAbsolutePath());
+					result.setDurationMillis((System.nanoTime() - start) / 1000000);
+					return;
+				}//end if
+			} catch (IOException e) {//the netlist can not be read, the parser reports the error
+				inputKey = null;
+			}//end try
+		}//end if
+		
+		KiCadVhdlBuilder builder = new KiCadVhdlBuilder(upperCase, defaultGenericDatatType);
+		builder.setMonitor(monitor);
 		VhdlTopLevel tempTopComp; 
 
-		ArrayList<Block> blockArr = new ArrayList<Block>(); //Container for KiCad net list, used to separate KiCad net list elements for easier processing
-		ArrayList<KiCadDataHelper> valuesRefFieldsData = new ArrayList<KiCadDataHelper>();
-		ArrayList<VhdlComponent> vhdlComponents = new ArrayList<VhdlComponent>();
-		ArrayList<VhdlTopLevel> vhdlTopComp = new ArrayList<VhdlTopLevel>();
-		VhdlPin vhdlTempPin = new VhdlPin();
-		ArrayList<KiCadLibparts> pinArr = new ArrayList<KiCadLibparts>();
-		ArrayList<VhdlGeneric> tempGeneric = new ArrayList<VhdlGeneric>();
-
-		//Parse KiCad net list
+		//Parse KiCad net list, the builder creates all VHDL components while the netlist is parsed
 		try {
-			blockArr = KiCadParseNetlist.getBlocks(kicadNetlist);
-		} catch (CloseProgramException e1) {
-			System.out.println("Was not able to parse net list file!. Program will be stopped.");
-			System.exit(-1);
+			if(this.parallelParsing){
+				KiCadParseNetlist.visitNetlistParallel(kicadNetlist, this.memoryMappedInput, builder, pool);
+			}else{
+				KiCadParseNetlist.visitNetlist(kicadNetlist, this.memoryMappedInput, builder);
+			}//end if
+		} catch (CloseProgramException e1) {//report the failure to the caller, other conversions of the JVM go on
+			throw new CloseProgramException("Was not able to parse net list file " + kicadNetlist.getPath() + ". " + e1.getMessage(), e1);
 		} 
+		if(monitor != null){
+			monitor.progress(ConversionMonitor.PHASE_BLOCKS_PARSED, KiCadParseNetlist.INDEX_NETS + 1, KiCadParseNetlist.INDEX_NETS + 1);
+			builder.reportComponentsCreated();
+		}//end if
 		
 		//get the name of the KiCad netlist file, which will be used to determine the name of the vhdl entity
-		topLevelName = KiCadParseNetlist.getSchematicName(blockArr.get(KiCadParseNetlist.INDEX_DESIGN));
+		topLevelName = builder.getTopLevelName();
+		ArrayList<VhdlComponent> vhdlComponents = builder.getVhdlComponents();
+		ArrayList<VhdlTopLevel> vhdlTopComp = builder.getVhdlTopLevelComponents();
+		ArrayList<KiCadLibparts> pinArr = builder.getLibparts();
+		SymbolTable symbols = builder.getSymbols(); //references and values are compared by their ignore case ids
+		
+		//A file without design section or without any component is not a KiCad netlist, it would create an entity without name
+		if(topLevelName == null || topLevelName.length() == 0){
+			InfoAndMessages.showError("Net list file " + kicadNetlist.getPath() + " has no design name. Check that the file is a KiCad netlist.");
+		}else if(vhdlComponents.isEmpty() && vhdlTopComp.isEmpty()){
+			InfoAndMessages.showError("Net list file " + kicadNetlist.getPath() + " has no components and no top level pins. Check that the file is a KiCad netlist.");
+		}//end if
+		KiCadToVhdl.reserveTarget(targets, new File(VhdlPath, topLevelName + ".vhd"), kicadNetlist);
+		
+		//Top level components need the signal name field that determines name and size of the top level pin
+		for(int i = 0; i < vhdlTopComp.size(); i++){
+			tempTopComp = vhdlTopComp.get(i);
+			if(tempTopComp.getVhdlGenerics().size() < 1){
+				//error TopLevelComponent is missing SignalName field!!!
+				InfoAndMessages.showError("Top Level pin with the name " + tempTopComp.getReference() + " has no signal name assigned to it. Add field " + SIGNAL_NAME_FIELD + " to the top level pin.");
+			}//end if
+				
+			if(tempTopComp.findGenericByName(SIGNAL_NAME_FIELD) != null){
+				tempTopComp.setPinSize( tempTopComp.findGenericByName(SIGNAL_NAME_FIELD).getSize());	
+			}//end if
+		}//end for(i)
 			
-		//Get all values, references and fields that are available in the components block of the KiCad file
-		valuesRefFieldsData = KiCadParseNetlist.processComponentsBlock(blockArr.get(KiCadParseNetlist.INDEX_COMPONENTS));
+			//Index components by reference, references are found without searching all components
+			LibpartRegistry registry = new LibpartRegistry(pinArr, symbols);
+			int[] keys;
 			
-		//Create all vhdl components
-		for(int i = 0; i < valuesRefFieldsData.size(); i++ ){	
-			//Create all VHDL components contained in the KiCad schematic
-			if(valuesRefFieldsData.get(i).getValue().equalsIgnoreCase(TOP_LEVEL_INPUT_COMP) || valuesRefFieldsData.get(i).getValue().equalsIgnoreCase(TOP_LEVEL_OUTPUT_COMP)){//create VHDL toplevel input component
-				if(valuesRefFieldsData.get(i).getValue().equalsIgnoreCase(TOP_LEVEL_INPUT_COMP)){
-					temp_b = true;
-				}else{
-					temp_b = false;
-				}//end if
-					
-				tempTopComp = new  VhdlTopLevel(valuesRefFieldsData.get(i).getRefference(), temp_b, upperCase);
-					
-				if((tempGeneric = KiCadToVhdl.convertFieldToGeneric(valuesRefFieldsData.get(i).getFields(), defaultGenericDatatType, tempTopComp.getReference())) != null){
-					tempTopComp.addVhdlGenerics(tempGeneric);
-				}else{
-					//error TopLevelComponent is missing SignalName field!!!
-					InfoAndMessages.showError("Top Level pin with the name " + tempTopComp.getReference() + " has no signal name assigned to it. Add field " + SIGNAL_NAME_FIELD + " to the top level pin.");
-				}//end if
-					
-				if(tempTopComp.findGenericByName(SIGNAL_NAME_FIELD) != null){
-					tempTopComp.setPinSize( tempTopComp.findGenericByName(SIGNAL_NAME_FIELD).getSize());	
-				}//end if
-					
-				vhdlTopComp.add(tempTopComp);
-
-				}else{//All other VHDL components. 
-					//Convert KiCad fields into generics, all KiCad fields that start with GENERIC_START_TOKEN will be recognized as VHDL generics
-					tempComp = new VhdlComponent(valuesRefFieldsData.get(i).getRefference(), valuesRefFieldsData.get(i).getValue());
-					if((tempGeneric = KiCadToVhdl.convertFieldToGeneric(valuesRefFieldsData.get(i).getFields(), defaultGenericDatatType, tempComp.getReference() )) != null){
-						tempComp.addVhdlGenerics(tempGeneric);
-						
-					}//end if
-					
-					vhdlComponents.add(tempComp);
-				}//end if
+			keys = new int[vhdlTopComp.size()];
+			for(int i = 0; i < vhdlTopComp.size(); i++){
+				keys[i] = symbols.getIgnoreCaseId(vhdlTopComp.get(i).getReferenceId());
 			}//end for(i)
+			int[][] topLevelByRef = createIndex(keys, symbols.size());
 			
-			//Convert Pinobjects to VhdlPins
-			try {
-				pinArr = KiCadParseNetlist.getPins(blockArr.get(KiCadParseNetlist.INDEX_LIBPARTS), upperCase);
-			} catch (CloseProgramException e) {
-				InfoAndMessages.showError(e.getMessage());
-			}//end catch
-			
+			keys = new int[vhdlComponents.size()];
+			for(int i = 0; i < vhdlComponents.size(); i++){
+				keys[i] = symbols.getIgnoreCaseId(vhdlComponents.get(i).getReferenceId());
+			}//end for(i)
+			int[][] componentByRef = createIndex(keys, symbols.size());
+			int[][] pinByNo = new int[vhdlComponents.size()][];
 			
-			//Copy all pins in the right components
+			//Assign the pins of the libparts to the components, all components of a part share the same pins
 			for(int i = 0; i < vhdlComponents.size(); i++){
-				for(int k = 0; k < pinArr.size(); k++){
-					if(vhdlComponents.get(i).getValue().equalsIgnoreCase(pinArr.get(k).getValue())){
-						for(int o = 0 ; o < pinArr.get(k).getPins().size(); o++){
-							vhdlTempPin = new VhdlPin(pinArr.get(k).getPins().get(o), defaultDatatype, "");//convert Pin to VhdlPin
-							vhdlComponents.get(i).addVhdlPin(vhdlTempPin);
-						}//end for (o)
-					}//end if					
-				}//end for (k)
+				vhdlComponents.get(i).setVhdlPinTemplates(registry.getPins(vhdlComponents.get(i).getValueId()), defaultDatatype);
+				pinByNo[i] = createPinIndex(vhdlComponents.get(i));
 			}//end for(p)	
 			
-			//Extract all nets from KiCad netlist section
-			ArrayList<KiCadNet> netlist = KiCadParseNetlist.getNets(blockArr.get(KiCadParseNetlist.INDEX_NETS));
+			//all components of the design, top level components first
+			ArrayList<VhdlComponent> tempCompArr = new ArrayList<VhdlComponent>();
+			tempCompArr.addAll(vhdlTopComp);
+			tempCompArr.addAll(vhdlComponents);
+			ConnectivityGraph graph = new ConnectivityGraph(tempCompArr, builder.getNetCount());
 			
-			//Assign nets to component pins
-			for(int netIndex = 0; netIndex < netlist.size(); netIndex++){//go through all nets
-				if(netlist.get(netIndex).getPinNumbers().size() > 1){
-					for(int pinIndex = 0; pinIndex < netlist.get(netIndex).getPinNumbers().size(); pinIndex++){//go trough all pins connected to a net
+			//Assign nets to component pins, all pins of a net share one net object that determines the signal name
+			VhdlNet[] nets = new VhdlNet[builder.getNetCount()];
+			for(int netIndex = 0; netIndex < builder.getNetCount(); netIndex++){//go through all nets
+				if(monitor != null && netIndex > 0 && netIndex % ConversionMonitor.PROGRESS_STEP == 0){
+					monitor.progress(ConversionMonitor.PHASE_NETS_BOUND, ConversionMonitor.PROGRESS_STEP, builder.getNetCount());
+				}//end if
+				if(builder.getNetNodeCount(netIndex) > 1){
+					nets[netIndex] = new VhdlNet(netIndex, "net_" + (netIndex+1));
+					for(int pinIndex = 0; pinIndex < builder.getNetNodeCount(netIndex); pinIndex++){//go trough all pins connected to a net
 						noRefferenceFound = true;
-						tempPinNo = netlist.get(netIndex).getPinNumbers().get(pinIndex);
+						tempPinNo = builder.getNetNodePin(netIndex, pinIndex);
+						tempRefId = symbols.getIgnoreCaseId(builder.getNetNodeReferenceId(netIndex, pinIndex));
+						if(tempRefId < 0) tempRefId = symbols.size();//node without reference, there is no component for it
 						
 						//top level component
-						for(int toplevelIndex = 0; toplevelIndex < vhdlTopComp.size(); toplevelIndex++){
-							if(vhdlTopComp.get(toplevelIndex).getReference().equalsIgnoreCase(netlist.get(netIndex).getReferences().get(pinIndex))){
-								tempPinIndex = vhdlTopComp.get(toplevelIndex).findVhdlPinByNo(tempPinNo);
-								
-								if(tempPinIndex < 0){
-									InfoAndMessages.showError(KICAD_TO_VHDL_ERR_ID0, "Top level input/output pin does not have any pin name (field not defined). Check component " + vhdlTopComp.get(toplevelIndex).getReference());
-								}//end if
-								
-								if(vhdlTopComp.get(toplevelIndex).getVhdlPin().getType().equals(VhdlPin.TYPE_IN) && !foundoutput){
-									foundoutput = true;
-								}else if(vhdlTopComp.get(toplevelIndex).getVhdlPin().getType().equals(VhdlPin.TYPE_IN) && foundoutput){
-									InfoAndMessages.showError("Multiple outputs are connected to net number = " + netIndex + " check component " 
-											+ vhdlTopComp.get(toplevelIndex).getReference()); 
-								}//
-								
-								noRefferenceFound = false;
-								vhdlTopComp.get(toplevelIndex).getVhdlPins().get(tempPinIndex).setHDLsigName("net_" + ((int)(netIndex+1)));
-								
+						for(int toplevelIndex = topLevelByRef[0][tempRefId]; toplevelIndex >= 0; toplevelIndex = topLevelByRef[1][toplevelIndex]){
+							tempPinIndex = vhdlTopComp.get(toplevelIndex).findVhdlPinByNo(tempPinNo);
+							
+							if(tempPinIndex < 0){
+								InfoAndMessages.showError(KICAD_TO_VHDL_ERR_ID0, "Top level input/output pin does not have any pin name (field not defined). Check component " + vhdlTopComp.get(toplevelIndex).getReference());
 							}//end if
+							
+							if(vhdlTopComp.get(toplevelIndex).getVhdlPin().getType().equals(VhdlPin.TYPE_IN) && !foundoutput){
+								foundoutput = true;
+							}else if(vhdlTopComp.get(toplevelIndex).getVhdlPin().getType().equals(VhdlPin.TYPE_IN) && foundoutput){
+								InfoAndMessages.showError("Multiple outputs are connected to net number = " + netIndex + " check component " 
+										+ vhdlTopComp.get(toplevelIndex).getReference()); 
+							}//
+							
+							noRefferenceFound = false;
+							vhdlTopComp.get(toplevelIndex).getVhdlPins().get(tempPinIndex).setNet(nets[netIndex]);
+							graph.addPin(netIndex, toplevelIndex, tempPinIndex);
 						}//end for (toplevelIndex)
 						
 						//all other components
-						for(int componentIndex = 0; componentIndex < vhdlComponents.size(); componentIndex++){
-							if(vhdlComponents.get(componentIndex).getReference().equalsIgnoreCase(netlist.get(netIndex).getReferences().get(pinIndex))){
-							
-								tempPinIndex = vhdlComponents.get(componentIndex).findVhdlPinByNo(tempPinNo);
-								if(tempPinIndex < 0){//this can only happens if KiCad netlist is wrong		
-									InfoAndMessages.showError( KICAD_TO_VHDL_ERR_ID1, "Component pin could not be found. Check component "  + vhdlComponents.get(componentIndex).getReference());
-								}//end if
-								
-								noRefferenceFound = false;
-								vhdlComponents.get(componentIndex).getVhdlPins().get(tempPinIndex).setHDLsigName("net_" + ((int)(netIndex+1)));
-								vhdlComponents.get(componentIndex).getVhdlPins().get(tempPinIndex).setIsSignal(true);
-								
-								if(vhdlComponents.get(componentIndex).getVhdlPins().get(tempPinIndex).getType().equals(VhdlPin.TYPE_OUT) && !foundoutput){
-									foundoutput = true;
-								}else if(vhdlComponents.get(componentIndex).getVhdlPins().get(tempPinIndex).getType().equals(VhdlPin.TYPE_OUT) && foundoutput){
-									InfoAndMessages.showError("Multiple outputs are connected to net number = " + netIndex + " check component " 
-																+ vhdlComponents.get(componentIndex).getReference() + " at pin number " + tempPinIndex ); 
-								}//
-								
+						for(int componentIndex = componentByRef[0][tempRefId]; componentIndex >= 0; componentIndex = componentByRef[1][componentIndex]){
+							tempPinIndex = findPin(pinByNo[componentIndex], vhdlComponents.get(componentIndex), tempPinNo);
+							if(tempPinIndex < 0){//this can only happens if KiCad netlist is wrong		
+								InfoAndMessages.showError( KICAD_TO_VHDL_ERR_ID1, "Component pin could not be found. Check component "  + vhdlComponents.get(componentIndex).getReference());
 							}//end if
-						}//end for (toplevelIndex)
+							
+							noRefferenceFound = false;
+							vhdlComponents.get(componentIndex).setVhdlPinNet(tempPinIndex, nets[netIndex], true);
+							graph.addPin(netIndex, vhdlTopComp.size() + componentIndex, tempPinIndex);
+							
+							if(vhdlComponents.get(componentIndex).getVhdlPinData(tempPinIndex).getType().equals(VhdlPin.TYPE_OUT) && !foundoutput){
+								foundoutput = true;
+							}else if(vhdlComponents.get(componentIndex).getVhdlPinData(tempPinIndex).getType().equals(VhdlPin.TYPE_OUT) && foundoutput){
+								InfoAndMessages.showError("Multiple outputs are connected to net number = " + netIndex + " check component " 
+															+ vhdlComponents.get(componentIndex).getReference() + " at pin number " + tempPinIndex ); 
+							}//
+						}//end for (componentIndex)
 						
 						//Error when no component has been found that appeared in the on the current net but is not contained within the vhdl component array. In this case most probably the KiCad netlist file is not correct
 						//This error should almost never appear
@@ -236,35 +476,310 @@ public class KiCadToVhdl {
 					foundoutput = false;
 				}//end if
 			}//end for(netIndex)
+			if(monitor != null && builder.getNetCount() > 0){
+				monitor.progress(ConversionMonitor.PHASE_NETS_BOUND, (builder.getNetCount() - 1) % ConversionMonitor.PROGRESS_STEP + 1, builder.getNetCount());
+			}//end if
 				
-			//Rename all nets that are connected to top level pins
+			//Rename all nets that are connected to top level pins, the first top level pin of a net determines the signal name of the net
 			for(int i = 0; i < vhdlTopComp.size(); i++){			
-				tempString =vhdlTopComp.get(i).getVhdlPin().getHDLsigName();
-				for(int compIndex = 0; compIndex < vhdlComponents.size(); compIndex++){
-					for(int pinIndex = 0; pinIndex < vhdlComponents.get(compIndex).getVhdlPinCount(); pinIndex++){
-						if(vhdlComponents.get(compIndex).getVhdlPins().get(pinIndex).getHDLsigName().equals(tempString)){//found a pin that is connected to current selected net
-							vhdlComponents.get(compIndex).getVhdlPins().get(pinIndex).setHDLsigName(vhdlTopComp.get(i).findGenericByName(SIGNAL_NAME_FIELD).getValue());
-							vhdlComponents.get(compIndex).getVhdlPins().get(pinIndex).setIsSignal(false);
-						}//end if	
-					}//end for(pinIndex)
-			}//end for(i)
+				VhdlNet net = vhdlTopComp.get(i).getVhdlPin().getNet();
+				if(net != null && !net.getIsTopLevel()){
+					net.setTopLevelName(vhdlTopComp.get(i).findGenericByName(SIGNAL_NAME_FIELD).getValue());
+				}//end if
 				
-			//rename top level pin net name as well
-			vhdlTopComp.get(i).getVhdlPin().setHDLsigName(vhdlTopComp.get(i).findGenericByName(SIGNAL_NAME_FIELD).getValue());
+				//rename top level pin net name as well
+				vhdlTopComp.get(i).getVhdlPin().setHDLsigName(vhdlTopComp.get(i).findGenericByName(SIGNAL_NAME_FIELD).getValue());
 			}//end for(i)
 						
+			//Remove the components that can not influence any top level output
+			if(this.pruneDeadLogic){
+				tempCompArr = KiCadToVhdl.removeDeadLogic(graph, result.getPrunedComponents());
+			}//end if
+			
+			//Combine the nets of buses to vector signals
+			if(this.busInference){
+				VhdlBusInference buses = new VhdlBusInference();
+				for(int netIndex = 0; netIndex < builder.getNetCount(); netIndex++){
+					if(nets[netIndex] != null && builder.getNetBusMemberName(netIndex) != null){
+						buses.addNet(nets[netIndex], builder.getNetBusMemberName(netIndex));
+					}//end if
+				}//end for(netIndex)
+				buses.assignBuses(tempCompArr, topLevelName);
+			}//end if
+			
 			//Create VHDL file
 			VhdlFile vhdlFile = new VhdlFile();
-			ArrayList<VhdlComponent> tempCompArr = new ArrayList<VhdlComponent>();
+			if(this.parallelRendering) vhdlFile.setRenderPool(pool);
+			vhdlFile.setGenerateMinInstances(this.generateMinInstances);
+			vhdlFile.setRenderCache(this.renderCache);
+			vhdlFile.setOverwritePolicy(this.overwritePolicy);
+			vhdlFile.setShowDialogs(showDialogs);
+			vhdlFile.setMonitor(monitor);
+			result.setConnectivityGraph(graph);
+			String vhdlFilePath;
+			try {
+				vhdlFilePath = vhdlFile.componentToVhdlFile(topLevelName, "_pkg", VhdlPath, upperCase, tempCompArr, showUnusedInputs);
+			} finally {//also reported when the kept file is a warning
+				result.setFileKept(vhdlFile.getFileKept());
+			}//end try
+			result.setVhdlFilePath(vhdlFilePath);
+			result.setSignalConflicts(vhdlFile.getSignalConflicts());
 			
-			for(int i = 0; i < vhdlTopComp.size(); i++){
-				tempCompArr.add((VhdlComponent)vhdlTopComp.get(i));
-			}//end for(i)
+			if(this.renderCache != null && saveRenderCache){
+				try {
+					this.renderCache.save();
+				} catch (IOException e) {//the next conversion renders all instantiations again
+					e.printStackTrace();
+				}//end try
+			}//end if
 			
-			tempCompArr.addAll(vhdlComponents);
-			vhdlFile.componentToVhdlFile(topLevelName, "_pkg", VhdlPath, upperCase, tempCompArr, showUnusedInputs);
+			if(inputKey != null && vhdlFilePath != null){
+				try {
+					ConversionManifest.update(new File(VhdlPath), kicadNetlist, inputKey, new File(vhdlFilePath));
+				} catch (IOException e) {//the next conversion is not skipped
+					e.printStackTrace();
+				}//end try
+			}//end if
+			result.setDurationMillis((System.nanoTime() - start) / 1000000);
 
-	}//end netlistToVhdl
+	}//end convert()
+	
+	/**
+	 * Same as netlistToVhdlAsync(File, String, boolean, boolean, String, String, ProgressListener, Executor), the conversion 
+	 * runs on the common fork join pool
+	 */
+	public CompletableFuture<ConversionResult> netlistToVhdlAsync(File kicadNetlist, String VhdlPath, boolean upperCase, boolean showUnusedInputs, 
+			String defaultDatatype, String defaultGenericDatatType, ProgressListener listener){
+		return this.netlistToVhdlAsync(kicadNetlist, VhdlPath, upperCase, showUnusedInputs, defaultDatatype, defaultGenericDatatType, listener, ForkJoinPool.commonPool());
+	}//end netlistToVhdlAsync()
+	
+	/**
+	 * Convert a netlist in the background. The future completes with the results of the conversion, or exceptionally with 
+	 * the CloseProgramException, WarningException, RuntimeException or Error the conversion failed with. 
+	 * Cancelling the returned future stops the conversion at its next progress report, without leaving a partly written 
+	 * VHDL file behind. Futures derived from it by thenApply() etc. do not pass their cancellation on.
+	 * The executor only runs the control flow of the conversion, the parallel parsing and rendering still use the common 
+	 * fork join pool, so a virtual thread per conversion (Executors.newVirtualThreadPerTaskExecutor() on Java 21) keeps 
+	 * hundreds of waiting conversions from holding platform threads.
+	 * @param kicadNetlist see netlistToVhdl()
+	 * @param VhdlPath see netlistToVhdl()
+	 * @param upperCase see netlistToVhdl()
+	 * @param showUnusedInputs see netlistToVhdl()
+	 * @param defaultDatatype see netlistToVhdl()
+	 * @param defaultGenericDatatType see netlistToVhdl()
+	 * @param listener receives the progress of the phases, see ConversionMonitor, null = no progress
+	 * @param executor runs the conversion
+	 * @return future of the results, the getters of this converter are not changed
+	 */
+	public CompletableFuture<ConversionResult> netlistToVhdlAsync(File kicadNetlist, final String VhdlPath, final boolean upperCase, final boolean showUnusedInputs, 
+			final String defaultDatatype, final String defaultGenericDatatType, ProgressListener listener, Executor executor){
+		final ConversionMonitor monitor = new ConversionMonitor(listener);
+		final ConversionResult result = new ConversionResult(kicadNetlist);
+		final KiCadToVhdl converter = this;
+		final CompletableFuture<ConversionResult> future = new CompletableFuture<ConversionResult>(){
+			@Override
+			public boolean cancel(boolean mayInterruptIfRunning){
+				monitor.cancel();
+				return super.cancel(mayInterruptIfRunning);
+			}//end cancel()
+		};
+		
+		try {
+			executor.execute(new Runnable(){
+				@Override
+				public void run(){
+					if(future.isDone()) return;//cancelled before it has been started
+					try {
+						converter.convert(result, VhdlPath, upperCase, showUnusedInputs, defaultDatatype, defaultGenericDatatType, ForkJoinPool.commonPool(), true, false, monitor, null);
+						future.complete(result);
+					} catch (CancellationException e) {
+						future.cancel(false);
+					} catch (Throwable e) {
+						future.completeExceptionally(e);//also errors like OutOfMemoryError, otherwise the future would never complete
+					}//end try
+				}//end run()
+			});
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(e);
+		}//end try
+		return future;
+	}//end netlistToVhdlAsync()
+	
+	/**
+	 * Convert many netlists concurrently in one JVM. The conversions run on a work stealing pool of the given parallelism, 
+	 * the largest netlists are started first so that they do not delay the end of the batch. The parsing and rendering of every 
+	 * conversion run on the same pool. All options of this converter are used for every netlist, a render cache is shared by 
+	 * all conversions and saved once after the batch. A failing netlist does not abort the others, its error is reported 
+	 * in its result. A netlist whose VHDL file is already written by another netlist of the batch fails. No dialogs are shown, so the overwrite policy should not be VhdlFile.OVERWRITE_ASK.
+	 * @param kicadNetlists KiCad netlist files
+	 * @param VhdlPath folder of the VHDL files, null = the folder of each netlist
+	 * @param upperCase see netlistToVhdl()
+	 * @param showUnusedInputs see netlistToVhdl()
+	 * @param defaultDatatype see netlistToVhdl()
+	 * @param defaultGenericDatatType see netlistToVhdl()
+	 * @param parallelism maximal number of worker threads, 0 = number of available processors
+	 * @return result of every netlist in the order of kicadNetlists
+	 */
+	public ArrayList<ConversionResult> netlistsToVhdl(List<File> kicadNetlists, final String VhdlPath, final boolean upperCase, final boolean showUnusedInputs, 
+			final String defaultDatatype, final String defaultGenericDatatType, int parallelism){
+		final ArrayList<ConversionResult> results = new ArrayList<ConversionResult>();
+		ArrayList<Integer> order = new ArrayList<Integer>();
+		final long[] sizes = new long[kicadNetlists.size()];
+		for(int i = 0; i < kicadNetlists.size(); i++){
+			results.add(new ConversionResult(kicadNetlists.get(i)));
+			order.add(i);
+			sizes[i] = kicadNetlists.get(i).length();
+		}//end for(i)
+		
+		//largest netlists first
+		Collections.sort(order, new Comparator<Integer>(){
+			@Override
+			public int compare(Integer a, Integer b){
+				return sizes[a] != sizes[b] ? (sizes[a] > sizes[b] ? -1 : 1) : a.compareTo(b);
+			}//end compare()
+		});
+		
+		final ConcurrentHashMap<String, File> targets = new ConcurrentHashMap<String, File>();//VHDL files of the batch
+		final ForkJoinPool batchPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+		try {
+			ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+			for(int i = 0; i < order.size(); i++){//submitted tasks are started in the order of submission
+				final ConversionResult result = results.get(order.get(i));
+				final KiCadToVhdl converter = this;
+				
+				tasks.add(batchPool.submit(new RecursiveAction(){
+					private static final long serialVersionUID = 1L;
+					@Override
+					protected void compute(){
+						String dir = VhdlPath != null ? VhdlPath : result.getNetlist().getAbsoluteFile().getParent();
+						long start = System.nanoTime();
+						try {
+							converter.convert(result, dir, upperCase, showUnusedInputs, defaultDatatype, defaultGenericDatatType, batchPool, false, false, null, targets);
+						} catch (CloseProgramException e) {
+							result.setError(e);
+						} catch (WarningException e) {
+							result.setError(e);
+						} catch (RuntimeException e) {
+							result.setError(e);
+						}//end try
+						if(!result.getSucceeded()) result.setDurationMillis((System.nanoTime() - start) / 1000000);
+					}//end compute()
+				}));
+			}//end for(i)
+			
+			for(int i = 0; i < tasks.size(); i++){
+				tasks.get(i).join();
+			}//end for(i)
+		} finally {
+			batchPool.shutdown();
+		}//end try
+		
+		if(this.renderCache != null){
+			try {
+				this.renderCache.save();
+			} catch (IOException e) {//the next conversion renders all instantiations again
+				e.printStackTrace();
+			}//end try
+		}//end if
+		
+		return results;
+	}//end netlistsToVhdl()
+	
+	/**
+	 * Reserve the VHDL file of a conversion of a batch, so that two netlists of the same design name do not write the same file
+	 * @param targets reserved files of the batch, null = no batch
+	 * @param vhdlFile VHDL file of the conversion
+	 * @param kicadNetlist netlist of the conversion
+	 * @throws CloseProgramException if the file has already been reserved for another netlist
+	 */
+	private static void reserveTarget(ConcurrentHashMap<String, File> targets, File vhdlFile, File kicadNetlist) throws CloseProgramException{
+		if(targets == null) return;
+		
+		File other = targets.putIfAbsent(vhdlFile.toPath().toAbsolutePath().normalize().toString(), kicadNetlist);
+		if(other != null){
+			InfoAndMessages.showError("VHDL file " + vhdlFile.getPath() + " is already written for net list file " + other.getPath() 
+					+ " in this batch. Both netlists have the same design name or the netlist is listed twice.");
+		}//end if
+	}//end reserveTarget()
+	
+	/**
+	 * Remove the components that can not influence any top level output
+	 * @param graph connectivity of the bound design
+	 * @param prunedComponents receives the references of the removed components
+	 * @return components of the graph that are kept, all components if the design has no top level output
+	 */
+	private static ArrayList<VhdlComponent> removeDeadLogic(ConnectivityGraph graph, ArrayList<String> prunedComponents){
+		ArrayList<VhdlComponent> liveComps = new ArrayList<VhdlComponent>();
+		boolean hasOutputs = false;
+		
+		for(int i = 0; i < graph.getComponentCount(); i++){
+			if(graph.getComponent(i).getIsTopLevel() && graph.getComponent(i).getVhdlPinCount() > 0 
+					&& VhdlPin.TYPE_OUT.equals(graph.getComponent(i).getVhdlPinData(0).getType())){
+				hasOutputs = true;
+			}//end if
+		}//end for(i)
+		
+		boolean[] live = graph.getLiveComponents();
+		for(int i = 0; i < graph.getComponentCount(); i++){
+			if(live[i] || !hasOutputs){
+				liveComps.add(graph.getComponent(i));
+			}else{
+				prunedComponents.add(graph.getComponent(i).getReference());
+			}//end if
+		}//end for(i)
+		
+		return liveComps;
+	}//end removeDeadLogic()
+	
+	/**
+	 * Create an index of elements by their key. index[0][key] is the first element with this key, 
+	 * index[1][element] the next element with the same key, -1 = no further element.
+	 * @param keys key of every element, for instance the ignore case id of a reference
+	 * @param keyCount number of different keys, all keys must be smaller than this value
+	 * @return index, the first array has one additional entry for keys that are not used by any element
+	 */
+	private static int[][] createIndex(int[] keys, int keyCount){
+		int[] first = new int[keyCount + 1];
+		int[] next = new int[keys.length];
+		Arrays.fill(first, -1);
+		
+		for(int i = keys.length - 1; i >= 0; i--){//backwards to keep the original order of elements with the same key
+			next[i] = first[keys[i]];
+			first[keys[i]] = i;
+		}//end for(i)
+		return new int[][]{first, next};
+	}//end createIndex()
+	
+	/**
+	 * Create an index of the pins of a component by their pin number
+	 * @param comp
+	 * @return pin index for every pin number or null if the pin numbers are not suitable for an index
+	 */
+	private static int[] createPinIndex(VhdlComponent comp){
+		int max = -1;
+		for(int i = 0; i < comp.getVhdlPinCount(); i++){
+			if(comp.getVhdlPinData(i).getNo() < 0) return null;
+			max = Math.max(max, comp.getVhdlPinData(i).getNo());
+		}//end for(i)
+		if(max > 4 * comp.getVhdlPinCount() + 64) return null;//sparse pin numbers, search the pins instead
+		
+		int[] index = new int[max + 1];
+		Arrays.fill(index, -1);
+		for(int i = comp.getVhdlPinCount() - 1; i >= 0; i--){//backwards, the first pin with a number is used
+			index[comp.getVhdlPinData(i).getNo()] = i;
+		}//end for(i)
+		return index;
+	}//end createPinIndex()
+	
+	/**
+	 * Find a pin by its number with the index of createPinIndex()
+	 * @return index of the pin or -1 if it was not found 
+	 */
+	private static int findPin(int[] index, VhdlComponent comp, int no){
+		if(index == null) return comp.findVhdlPinByNo(no);
+		if(no < 0 || no >= index.length) return -1;
+		return index[no];
+	}//end findPin()
 	
 /**
  * convert KiCAd fields into VHDL generics
@@ -278,44 +793,59 @@ public class KiCadToVhdl {
  * @return
  */
 public static ArrayList<VhdlGeneric> convertFieldToGeneric(ArrayList<KiCadField> fields, String datatype, String ref){
-	String size;
-	String name = null;
-	String value;
+	VhdlGeneric tempGen;
 	if(fields == null || fields.size() < 1)return null;
 	
 	ArrayList<VhdlGeneric> temp = new ArrayList<VhdlGeneric>();
 	for(int i = 0; i < fields.size(); i++){
-		if(fields.get(i).getName().startsWith(GENERIC_START_TOKEN) || fields.get(i).getName().startsWith(SIGNAL_NAME_FIELD)){
-			value = fields.get(i).getValue(); 
-			VhdlGeneric tempGen = new VhdlGeneric();
-
-			String[] tempSize = VhdlComponent.getParameter(value, '[',']');
-			if(tempSize[0] != null){
-				size = tempSize[0];
-				value = tempSize[1];
-			} 
-			else {
-				size = "0";
-			}//end if
-			
-			if(fields.get(i).getName().startsWith(GENERIC_START_TOKEN)){
-				name = fields.get(i).getName().substring(GENERIC_START_TOKEN.length());
-				value = fields.get(i).getValue();
-				tempGen.isActive(true);
-			}else{
-				name = SIGNAL_NAME_FIELD;
-				tempGen.isActive(false);
-			}//end if
-			
-			tempGen.setGeneric(name, value, datatype, size);
-			tempGen.setCompRef(ref);
+		tempGen = convertFieldToGeneric(fields.get(i).getName(), fields.get(i).getValue(), datatype, ref);
+		if(tempGen != null){
 			temp.add(tempGen);
-			
 		}//end if
-		
 	}//end for(i)
 	
 	return temp;
 }//end converFieldToGeneric()
+
+/**
+ * Convert a single KiCad field into a VHDL generic, see convertFieldToGeneric(ArrayList, String, String)
+ * @param fieldName name of the KiCad field
+ * @param fieldValue value of the KiCad field
+ * @param datatype
+ * @param ref reference of the component to create a unique generic parameter in the vhdl code file
+ * @return generic or null if the field is neither a generic nor a signal name field
+ */
+public static VhdlGeneric convertFieldToGeneric(String fieldName, String fieldValue, String datatype, String ref){
+	String size;
+	String name = null;
+	String value;
+	
+	if(!fieldName.startsWith(GENERIC_START_TOKEN) && !fieldName.startsWith(SIGNAL_NAME_FIELD)) return null;
+	
+	value = fieldValue; 
+	VhdlGeneric tempGen = new VhdlGeneric();
+
+	String[] tempSize = VhdlComponent.getParameter(value, '[',']');
+	if(tempSize[0] != null){
+		size = tempSize[0];
+		value = tempSize[1];
+	} 
+	else {
+		size = "0";
+	}//end if
+	
+	if(fieldName.startsWith(GENERIC_START_TOKEN)){
+		name = fieldName.substring(GENERIC_START_TOKEN.length());
+		value = fieldValue;
+		tempGen.isActive(true);
+	}else{
+		name = SIGNAL_NAME_FIELD;
+		tempGen.isActive(false);
+	}//end if
+	
+	tempGen.setGeneric(name, value, datatype, size);
+	tempGen.setCompRef(ref);
+	return tempGen;
+}//end converFieldToGeneric()
 	
 }//end class
@@ -0,0 +1,238 @@
+/*BSD 3 clause license
+
+Copyright (c) 2014, Thomas Kinder, info@thinkingsand.com
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification,are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation 
+   and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+   may be used to endorse or promote products derived from this software 
+   without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL Thomas Kinder OR CONTRIBUTORS
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+/**
+ * Command line converter of KiCad netlists into VHDL files for build servers without a display. 
+ * The converter does not show any dialog and does not load AWT or Swing classes, all messages are written to 
+ * the standard output and error streams. All netlists of one call are converted concurrently in the same JVM. See usage() for the options.
+ * The start of the JVM can be reduced with an AppCDS archive of the classes of a conversion:
+ * <pre>
+ * java -XX:ArchiveClassesAtExit=kicadtovhdl.jsa -cp ProgLogicJLib.jar com.proglogicjlib.kicad.KiCadToVhdlCli -o vhdl design.net
+ * java -XX:SharedArchiveFile=kicadtovhdl.jsa -cp ProgLogicJLib.jar com.proglogicjlib.kicad.KiCadToVhdlCli -o vhdl design.net
+ * </pre>
+ */
+package com.proglogicjlib.kicad;
+
+import java.io.File;
+import java.util.ArrayList;
+
+import com.proglogicjlib.misc.InfoAndMessages;
+import com.proglogicjlib.vhdl.VhdlFile;
+import com.proglogicjlib.vhdl.VhdlKeywords;
+import com.proglogicjlib.vhdl.VhdlRenderCache;
+
+public class KiCadToVhdlCli {
+	/**Exit codes of the converter*/
+	public static final int EXIT_OK = 0;
+	public static final int EXIT_CONVERSION_FAILED = 1;
+	public static final int EXIT_USAGE = 2;
+	
+	private String outputDir = null;
+	private int overwritePolicy = VhdlFile.OVERWRITE_ALWAYS;
+	private String datatype = VhdlKeywords.TYPE_STD_LOGIC;
+	private String genericDatatype = VhdlKeywords.TYPE_INTEGER;
+	private boolean upperCase = false;
+	private boolean showUnusedInputs = false;
+	private boolean incremental = false;
+	private boolean busInference = false;
+	private boolean pruneDeadLogic = false;
+	private int generateMinInstances = 0;
+	private String cacheFile = null;
+	private int jobs = 0;
+	private ArrayList<File> netlists = new ArrayList<File>();
+	
+	public static void main(String[] args){
+		System.exit(new KiCadToVhdlCli().run(args));
+	}//end main()
+	
+	/**
+	 * Convert the netlists of the command line
+	 * @param args command line arguments
+	 * @return exit code
+	 */
+	public int run(String[] args){
+		String error = this.parseArguments(args);
+		if(error != null){
+			System.err.println(InfoAndMessages.ERR_STRING + error);
+			System.err.println(KiCadToVhdlCli.usage());
+			return EXIT_USAGE;
+		}//end if
+		if(this.netlists.isEmpty()){
+			System.out.println(KiCadToVhdlCli.usage());
+			return EXIT_OK;
+		}//end if
+		
+		InfoAndMessages.setShowDialogs(false);
+		KiCadToVhdl converter = new KiCadToVhdl();
+		converter.setOverwritePolicy(this.overwritePolicy);
+		converter.setIncremental(this.incremental);
+		converter.setBusInference(this.busInference);
+		converter.setPruneDeadLogic(this.pruneDeadLogic);
+		converter.setGenerateMinInstances(this.generateMinInstances);
+		if(this.cacheFile != null) converter.setRenderCache(new VhdlRenderCache(new File(this.cacheFile)));
+		
+		ArrayList<ConversionResult> results = converter.netlistsToVhdl(this.netlists, this.outputDir, this.upperCase, this.showUnusedInputs, 
+				this.datatype, this.genericDatatype, this.jobs);
+		int exitCode = EXIT_OK;
+		
+		for(int i = 0; i < results.size(); i++){
+			ConversionResult result = results.get(i);
+			String netlist = result.getNetlist().getPath();
+			
+			if(!result.getSucceeded()){
+				if(result.getError() instanceof RuntimeException){
+					System.err.println(netlist + ": " + InfoAndMessages.ERR_STRING + "Conversion failed, " + result.getError());
+				}else{
+					System.err.println(netlist + ": " + result.getError().getMessage());
+				}//end if
+				exitCode = EXIT_CONVERSION_FAILED;
+				continue;
+			}//end if
+			
+			if(result.getUpToDate()){
+				System.out.println(netlist + ": up to date");
+			}else if(result.getFileKept()){
+				System.out.println(netlist + ": existing file kept");
+			}else if(result.getVhdlFilePath() == null){
+				System.err.println(netlist + ": " + InfoAndMessages.ERR_STRING + "VHDL file has not been saved");
+				exitCode = EXIT_CONVERSION_FAILED;
+			}else{
+				System.out.println(netlist + " -> " + result.getVhdlFilePath());
+			}//end if
+			
+			for(int k = 0; k < result.getSignalConflicts().size(); k++){
+				System.err.println(InfoAndMessages.WARN_STRING + result.getSignalConflicts().get(k));
+			}//end for(k)
+			if(!result.getPrunedComponents().isEmpty()){
+				System.out.println(InfoAndMessages.INFO_STRING + "Removed dead logic: " + result.getPrunedComponents());
+			}//end if
+		}//end for(i)
+		
+		return exitCode;
+	}//end run()
+	
+	/**
+	 * Read the options and netlists of the command line
+	 * @return error message, null if the arguments are valid
+	 */
+	private String parseArguments(String[] args){
+		for(int i = 0; i < args.length; i++){
+			String arg = args[i];
+			boolean hasValue = i + 1 < args.length;
+			
+			if(arg.equals("-h") || arg.equals("--help")){
+				this.netlists.clear();
+				return null;
+			}else if(arg.equals("-o") || arg.equals("--output")){
+				if(!hasValue) return "Missing directory after " + arg;
+				this.outputDir = args[++i];
+			}else if(arg.equals("--overwrite")){
+				if(!hasValue) return "Missing policy after " + arg;
+				String policy = args[++i];
+				if(policy.equals("always")){
+					this.overwritePolicy = VhdlFile.OVERWRITE_ALWAYS;
+				}else if(policy.equals("never")){
+					this.overwritePolicy = VhdlFile.OVERWRITE_NEVER;
+				}else{
+					return "Unknown overwrite policy " + policy;
+				}//end if
+			}else if(arg.equals("--datatype")){
+				if(!hasValue) return "Missing data type after " + arg;
+				this.datatype = args[++i];
+				if(!this.datatype.equalsIgnoreCase(VhdlKeywords.TYPE_STD_LOGIC) && !this.datatype.equalsIgnoreCase(VhdlKeywords.TYPE_STD_ULOGIC)){
+					return "Unknown data type " + this.datatype;
+				}//end if
+			}else if(arg.equals("--generic-datatype")){
+				if(!hasValue) return "Missing data type after " + arg;
+				this.genericDatatype = args[++i];
+				if(!this.genericDatatype.equalsIgnoreCase(VhdlKeywords.TYPE_INTEGER) && !this.genericDatatype.equalsIgnoreCase(VhdlKeywords.TYPE_NATURAL)){
+					return "Unknown generic data type " + this.genericDatatype;
+				}//end if
+			}else if(arg.equals("--generate")){
+				if(!hasValue) return "Missing number of instances after " + arg;
+				try {
+					this.generateMinInstances = Integer.parseInt(args[++i]);
+				} catch (NumberFormatException e) {
+					return "Invalid number of instances " + args[i];
+				}//end try
+			}else if(arg.equals("-j") || arg.equals("--jobs")){
+				if(!hasValue) return "Missing number of jobs after " + arg;
+				try {
+					this.jobs = Integer.parseInt(args[++i]);
+				} catch (NumberFormatException e) {
+					return "Invalid number of jobs " + args[i];
+				}//end try
+			}else if(arg.equals("--cache")){
+				if(!hasValue) return "Missing file after " + arg;
+				this.cacheFile = args[++i];
+			}else if(arg.equals("--upper-case")){
+				this.upperCase = true;
+			}else if(arg.equals("--show-unused")){
+				this.showUnusedInputs = true;
+			}else if(arg.equals("--incremental")){
+				this.incremental = true;
+			}else if(arg.equals("--bus-inference")){
+				this.busInference = true;
+			}else if(arg.equals("--prune")){
+				this.pruneDeadLogic = true;
+			}else if(arg.startsWith("-")){
+				return "Unknown option " + arg;
+			}else{
+				File netlist = new File(arg);
+				if(!netlist.isFile()) return "Netlist " + arg + " does not exist";
+				this.netlists.add(netlist);
+			}//end if
+		}//end for(i)
+		
+		return null;
+	}//end parseArguments()
+	
+	/**
+	 * @return description of the command line
+	 */
+	public static String usage(){
+		return "Usage: KiCadToVhdlCli [options] netlist...\n"
+				+ "  -o, --output DIR          directory of the VHDL files, default is the directory of each netlist\n"
+				+ "  --overwrite always|never  replace existing VHDL files of different content or keep them, default always\n"
+				+ "  --datatype stdl|stdul     data type of the ports and signals, default stdl\n"
+				+ "  --generic-datatype int|nat data type of the generics, default int\n"
+				+ "  --upper-case              VHDL keywords in upper case\n"
+				+ "  --show-unused             write open outputs and unused inputs\n"
+				+ "  --incremental             skip netlists that have not changed since their last conversion\n"
+				+ "  --generate N              code runs of N or more identical instances as for-generate\n"
+				+ "  --bus-inference           combine the nets of buses like /data[0] to vector signals\n"
+				+ "  --prune                   remove components that do not drive any top level output\n"
+				+ "  --cache FILE              cache of rendered component instantiations\n"
+				+ "  -j, --jobs N              convert up to N netlists at the same time, default is the number of processors\n"
+				+ "  -h, --help                show this help\n"
+				+ "Exit codes: 0 = all netlists converted, 1 = a conversion failed, 2 = invalid arguments";
+	}//end usage()
+	
+}//end class
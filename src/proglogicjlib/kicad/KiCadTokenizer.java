@@ -0,0 +1,262 @@
+/*BSD 3 clause license
+
+Copyright (c) 2014, Thomas Kinder, info@thinkingsand.com
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification,are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation 
+   and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+   may be used to endorse or promote products derived from this software 
+   without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL Thomas Kinder OR CONTRIBUTORS
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+/**
+ * Streaming tokenizer for the S-expression format of KiCad netlist files. The tokenizer
+ * walks the text exactly once, character by character, and never copies it. Brackets that
+ * are part of a quoted string are not counted as list delimiters.
+ */
+package com.proglogicjlib.kicad;
+
+public class KiCadTokenizer {
+	
+	/**
+	 * No more tokens available
+	 */
+	public static final int TOKEN_EOF = 0;
+	
+	/**
+	 * Opening bracket "(" of a list
+	 */
+	public static final int TOKEN_OPEN = 1;
+	
+	/**
+	 * Closing bracket ")" of a list
+	 */
+	public static final int TOKEN_CLOSE = 2;
+	
+	/**
+	 * Unquoted symbol or number like comp, U1 or 42
+	 */
+	public static final int TOKEN_ATOM = 3;
+	
+	/**
+	 * Quoted string. The token text does not contain the enclosing quotes.
+	 */
+	public static final int TOKEN_STRING = 4;
+	
+	private CharSequence text;
+	private int pos;
+	private int end;
+	private int line;
+	private int depth;
+	
+	private int type;
+	private int tokenStart; 
+	private int tokenEnd;
+	private int rawStart;
+	private int tokenLine;
+	
+	/**
+	 * Create a tokenizer for the complete text
+	 * @param text netlist content
+	 */
+	public KiCadTokenizer(CharSequence text){
+		this(text, 0, text.length(), 0);
+	}//end constructor
+	
+	/**
+	 * Create a tokenizer for a region of the text
+	 * @param text netlist content
+	 * @param start index of the first character that shall be processed
+	 * @param end index after the last character that shall be processed
+	 * @param line line number of the start index in the original file 
+	 */
+	public KiCadTokenizer(CharSequence text, int start, int end, int line){
+		this.text = text;
+		this.pos = start;
+		this.end = end;
+		this.line = line;
+		this.depth = 0;
+		this.type = TOKEN_EOF;
+	}//end constructor
+	
+	/**
+	 * Read the next token
+	 * @return type of the token, see TOKEN_* constants
+	 */
+	public int next(){
+		char c = 0;
+		
+		//skip white spaces and count lines
+		while(pos < end){
+			c = text.charAt(pos);
+			if(c == '\n'){
+				line++;
+			}else if(c != ' ' && c != '\t' && c != '\r'){
+				break;
+			}//end if
+			pos++;
+		}//end while
+		
+		tokenLine = line;
+		rawStart = pos;
+		
+		if(pos >= end){
+			type = TOKEN_EOF;
+			tokenStart = tokenEnd = end;
+			return type;
+		}//end if
+		
+		if(c == '('){
+			depth++;
+			type = TOKEN_OPEN;
+			tokenStart = pos;
+			tokenEnd = ++pos;
+		}else if(c == ')'){
+			depth--;
+			type = TOKEN_CLOSE;
+			tokenStart = pos;
+			tokenEnd = ++pos;
+		}else if(c == '"'){//quoted string, brackets inside are no list delimiters
+			type = TOKEN_STRING;
+			tokenStart = ++pos;
+			while(pos < end){
+				c = text.charAt(pos);
+				if(c == '\\'){
+					pos++;
+				}else if(c == '"'){
+					break;
+				}else if(c == '\n'){
+					line++;
+				}//end if
+				pos++;
+			}//end while
+			tokenEnd = pos < end ? pos : end;
+			if(pos < end) pos++;//skip closing quote
+		}else{
+			type = TOKEN_ATOM;
+			tokenStart = pos;
+			while(pos < end){
+				c = text.charAt(pos);
+				if(c == '(' || c == ')' || c == '"' || c == ' ' || c == '\t' || c == '\r' || c == '\n') break;
+				pos++;
+			}//end while
+			tokenEnd = pos;
+		}//end if
+		
+		return type;
+	}//end next()
+	
+	/**
+	 * Skip all tokens until the list that is currently open has been closed. 
+	 * The closing bracket of the list is consumed as well.
+	 */
+	public void skipList(){
+		int target = depth - 1;
+		while(depth > target && next() != TOKEN_EOF);
+	}//end skipList()
+	
+	/**
+	 * Read everything from the current position up to the closing bracket of the 
+	 * currently open list and consume the closing bracket. Leading and trailing white spaces
+	 * are removed. If the content only consists of one quoted string the quotes are removed.
+	 * @return content of the list
+	 */
+	public CharSequence readListContent(){
+		int target = depth - 1;
+		int first = -1;
+		int last = -1;
+		int count = 0;
+		int firstStart = 0, firstEnd = 0;
+		boolean firstIsString = false;
+		
+		while(next() != TOKEN_EOF){
+			if(depth <= target)break;
+			if(first < 0){
+				first = rawStart;
+				firstStart = tokenStart;
+				firstEnd = tokenEnd;
+				firstIsString = (type == TOKEN_STRING);
+			}//end if
+			last = pos;
+			count++;
+		}//end while
+		
+		if(first < 0) return "";
+		if(count == 1 && firstIsString) return text.subSequence(firstStart, firstEnd);
+		return text.subSequence(first, last);
+	}//end readListContent()
+	
+	/**
+	 * Check if the current token is an atom with the given content. 
+	 * The comparison does not create any new objects.
+	 * @param keyword
+	 * @return
+	 */
+	public boolean isAtom(String keyword){
+		if(type != TOKEN_ATOM) return false;
+		if(tokenEnd - tokenStart != keyword.length()) return false;
+		for(int i = 0; i < keyword.length(); i++){
+			if(text.charAt(tokenStart+i) != keyword.charAt(i))return false;
+		}//end for(i)
+		return true;
+	}//end isAtom()
+	
+	/**
+	 * @return type of the current token
+	 */
+	public int getType(){return this.type;}
+	
+	/**
+	 * @return the current list depth. After an opening bracket the depth is increased, after a closing bracket decreased.
+	 */
+	public int getDepth(){return this.depth;}
+	
+	/**
+	 * @return line of the current token in the original file
+	 */
+	public int getLine(){return this.tokenLine;}
+	
+	/**
+	 * @return index of the first character of the current token, for strings the opening quote
+	 */
+	public int getStart(){return this.rawStart;}
+	
+	/**
+	 * @return index after the last character of the current token, for strings after the closing quote
+	 */
+	public int getEnd(){return this.pos;}
+	
+	/**
+	 * @return the content of the current token without quotes
+	 */
+	public CharSequence getSequence(){
+		return text.subSequence(tokenStart, tokenEnd);
+	}//end getSequence()
+	
+	/**
+	 * @return the content of the current token without quotes as a string
+	 */
+	public String getText(){
+		return text.subSequence(tokenStart, tokenEnd).toString();
+	}//end getText()
+	
+}//end class
@@ -0,0 +1,250 @@
+/*BSD 3 clause license
+
+Copyright (c) 2014, Thomas Kinder, info@thinkingsand.com
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification,are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation 
+   and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+   may be used to endorse or promote products derived from this software 
+   without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL Thomas Kinder OR CONTRIBUTORS
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+/**
+ * Netlist visitor that creates the VHDL components of a KiCad netlist. Components and their generics are
+ * created directly out of the parser callbacks, the nets are only recorded as compact arrays of
+ * references and pin numbers until they are bound to the component pins. 
+ * All references, values and pin names are stored once in the SymbolTable of the builder. 
+ * The data of each netlist section is kept separate, the builder can therefore be used with
+ * KiCadParseNetlist.visitNetlistParallel().
+ */
+package com.proglogicjlib.kicad;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import com.proglogicjlib.data.Pin;
+import com.proglogicjlib.data.SymbolTable;
+import com.proglogicjlib.misc.CloseProgramException;
+import com.proglogicjlib.misc.ConversionMonitor;
+import com.proglogicjlib.misc.InfoAndMessages;
+import com.proglogicjlib.vhdl.VhdlBusInference;
+import com.proglogicjlib.vhdl.VhdlComponent;
+import com.proglogicjlib.vhdl.VhdlGeneric;
+import com.proglogicjlib.vhdl.components.VhdlTopLevel;
+
+public class KiCadVhdlBuilder implements NetlistVisitor {
+	
+	private static final String TOP_LEVEL_INPUT_COMP = "TOP_IN";
+	private static final String TOP_LEVEL_OUTPUT_COMP = "TOP_OUT";
+	
+	private boolean upperCase;
+	private String defaultGenericDatatype;
+	
+	private SymbolTable symbols = new SymbolTable();
+	private String topLevelName = null;
+	private VhdlComponent currentComp = null;
+	private ArrayList<VhdlComponent> vhdlComponents = new ArrayList<VhdlComponent>();
+	private ArrayList<VhdlTopLevel> vhdlTopComp = new ArrayList<VhdlTopLevel>();
+	private ArrayList<KiCadLibparts> libparts = new ArrayList<KiCadLibparts>();
+	
+	//nets: the nodes of net n are stored at the indexes netStart[n] to netStart[n+1]-1
+	private int[] nodeReferenceIds = new int[64];
+	private int[] nodePins = new int[64];
+	private int nodeCount = 0;
+	private int[] netStart = new int[65];
+	private int netCount = 0;
+	private HashMap<Integer, String> busMemberNames = new HashMap<Integer, String>();//names of the nets that are bus members
+	
+	private ConversionMonitor monitor = null;
+	
+	/**
+	 * @param upperCase If true print all VHDL keywords of top level components in upper case letters
+	 * @param defaultGenericDatatype Default data type for generic datatypes
+	 */
+	public KiCadVhdlBuilder(boolean upperCase, String defaultGenericDatatype){
+		this.upperCase = upperCase;
+		this.defaultGenericDatatype = defaultGenericDatatype;
+	}//end constructor
+	
+	/**
+	 * Report the created components to a monitor and stop the parsing when the conversion is cancelled
+	 * @param monitor monitor of the conversion, null = none (default)
+	 */
+	public void setMonitor(ConversionMonitor monitor){this.monitor = monitor;}
+	
+	/**
+	 * Report the components that have been created since the last report, call it after the netlist has been parsed
+	 */
+	public void reportComponentsCreated(){
+		int created = this.vhdlTopComp.size() + this.vhdlComponents.size();
+		if(this.monitor != null) this.monitor.progress(ConversionMonitor.PHASE_COMPONENTS_CREATED, created % ConversionMonitor.PROGRESS_STEP, created);
+	}//end reportComponentsCreated()
+
+	public void onDesign(CharSequence source) {
+		this.topLevelName = KiCadParseNetlist.getSchematicName(source.toString());
+	}//end onDesign()
+
+	public void onComponent(CharSequence ref, CharSequence value) throws CloseProgramException {
+		int refId = this.symbols.getId(ref);
+		int valueId = this.symbols.getId(value);
+		String reference = this.symbols.getSymbol(refId);
+		String val = this.symbols.getSymbol(valueId);
+		
+		if(val == null || reference == null){
+			InfoAndMessages.showError("Component without reference or value found in the KiCad netlist. Reference = " + reference);
+		}//end if
+		
+		//Create all VHDL components contained in the KiCad schematic
+		if(val.equalsIgnoreCase(TOP_LEVEL_INPUT_COMP) || val.equalsIgnoreCase(TOP_LEVEL_OUTPUT_COMP)){//create VHDL toplevel input component
+			VhdlTopLevel tempTopComp = new VhdlTopLevel(reference, val.equalsIgnoreCase(TOP_LEVEL_INPUT_COMP), this.upperCase);
+			this.vhdlTopComp.add(tempTopComp);
+			this.currentComp = tempTopComp;
+		}else{//All other VHDL components. 
+			this.currentComp = new VhdlComponent(reference, val);
+			this.vhdlComponents.add(this.currentComp);
+		}//end if
+		this.currentComp.setSymbolIds(refId, valueId);
+		
+		if(this.monitor != null && (this.vhdlTopComp.size() + this.vhdlComponents.size()) % ConversionMonitor.PROGRESS_STEP == 0){
+			this.monitor.progress(ConversionMonitor.PHASE_COMPONENTS_CREATED, ConversionMonitor.PROGRESS_STEP, -1);
+		}//end if
+	}//end onComponent()
+
+	public void onField(CharSequence name, CharSequence value) {
+		//Convert KiCad fields into generics, all KiCad fields that start with GENERIC_START_TOKEN will be recognized as VHDL generics
+		VhdlGeneric generic = KiCadToVhdl.convertFieldToGeneric(name.toString(), value.toString(), this.defaultGenericDatatype, this.currentComp.getReference());
+		if(generic != null){
+			this.currentComp.getVhdlGenerics().add(generic);
+		}//end if
+	}//end onField()
+
+	public void onLibpart(CharSequence part) {
+		int valueId = this.symbols.getId(part);
+		KiCadLibparts libpart = new KiCadLibparts(this.symbols.getSymbol(valueId), new ArrayList<Pin>());
+		libpart.setValueId(valueId);
+		this.libparts.add(libpart);
+	}//end onLibpart()
+
+	public void onLibpartPin(CharSequence part, int num, CharSequence name, CharSequence type) throws CloseProgramException {
+		Pin pin = KiCadParseNetlist.createPin(num, name.toString(), type.toString());
+		pin.setNameId(this.symbols.getId(pin.getName()));
+		pin.setName(this.symbols.getSymbol(pin.getNameId()));
+		this.libparts.get(this.libparts.size()-1).addPin(pin);
+	}//end onLibpartPin()
+
+	public void onNetName(int netIndex, CharSequence name) {
+		if(VhdlBusInference.getBusIndex(name) >= 0){//all other names are not needed
+			this.busMemberNames.put(netIndex, name.toString());
+		}//end if
+	}//end onNetName()
+	
+	public void onNetNode(int netIndex, CharSequence ref, int pin) {
+		if(this.nodeCount == this.nodePins.length){
+			int[] refs = new int[this.nodeCount * 2];
+			int[] pins = new int[this.nodeCount * 2];
+			System.arraycopy(this.nodeReferenceIds, 0, refs, 0, this.nodeCount);
+			System.arraycopy(this.nodePins, 0, pins, 0, this.nodeCount);
+			this.nodeReferenceIds = refs;
+			this.nodePins = pins;
+		}//end if
+		
+		this.nodeReferenceIds[this.nodeCount] = this.symbols.getId(ref);
+		this.nodePins[this.nodeCount] = pin;
+		this.nodeCount++;
+	}//end onNetNode()
+
+	public void onNetEnd(int netIndex, int nodeCount) {
+		if(this.netCount + 1 == this.netStart.length){
+			int[] temp = new int[this.netStart.length * 2];
+			System.arraycopy(this.netStart, 0, temp, 0, this.netStart.length);
+			this.netStart = temp;
+		}//end if
+		
+		this.netCount++;
+		this.netStart[this.netCount] = this.nodeCount;
+		if(this.monitor != null && this.netCount % ConversionMonitor.PROGRESS_STEP == 0) this.monitor.checkCancelled();
+	}//end onNetEnd()
+	
+	/**
+	 * @return symbol table with all references, values and pin names of the netlist
+	 */
+	public SymbolTable getSymbols(){return this.symbols;}
+	
+	/**
+	 * @return name of the schematic that has been parsed, null if the netlist does not contain it
+	 */
+	public String getTopLevelName(){return this.topLevelName;}
+	
+	/**
+	 * @return all components that are not top level components
+	 */
+	public ArrayList<VhdlComponent> getVhdlComponents(){return this.vhdlComponents;}
+	
+	/**
+	 * @return all top level input and output components
+	 */
+	public ArrayList<VhdlTopLevel> getVhdlTopLevelComponents(){return this.vhdlTopComp;}
+	
+	/**
+	 * @return all libparts with their pins
+	 */
+	public ArrayList<KiCadLibparts> getLibparts(){return this.libparts;}
+	
+	/**
+	 * @return number of nets
+	 */
+	public int getNetCount(){return this.netCount;}
+	
+	/**
+	 * @param netIndex
+	 * @return number of nodes of the net
+	 */
+	public int getNetNodeCount(int netIndex){return this.netStart[netIndex+1] - this.netStart[netIndex];}
+	
+	/**
+	 * @param netIndex
+	 * @param node index of the node within the net
+	 * @return reference of the component connected to the node
+	 */
+	public String getNetNodeReference(int netIndex, int node){return this.symbols.getSymbol(getNetNodeReferenceId(netIndex, node));}
+	
+	/**
+	 * @param netIndex
+	 * @param node index of the node within the net
+	 * @return SymbolTable id of the reference of the component connected to the node, -1 if the node has no reference
+	 */
+	public int getNetNodeReferenceId(int netIndex, int node){return this.nodeReferenceIds[this.netStart[netIndex] + node];}
+	
+	/**
+	 * @param netIndex
+	 * @param node index of the node within the net
+	 * @return pin number of the component connected to the node
+	 */
+	public int getNetNodePin(int netIndex, int node){return this.nodePins[this.netStart[netIndex] + node];}
+	
+	/**
+	 * @param netIndex
+	 * @return name of the net if it is named like a bus member, for instance /data[3], else null
+	 */
+	public String getNetBusMemberName(int netIndex){return this.busMemberNames.get(netIndex);}
+	
+}//end class
@@ -0,0 +1,90 @@
+/*BSD 3 clause license
+
+Copyright (c) 2014, Thomas Kinder, info@thinkingsand.com
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification,are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation 
+   and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+   may be used to endorse or promote products derived from this software 
+   without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL Thomas Kinder OR CONTRIBUTORS
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+/**
+ * Registry of the libparts of a netlist. The pins of every part exist only once and are shared by all 
+ * components of this part, see VhdlComponent.setVhdlPinTemplates().
+ */
+package com.proglogicjlib.kicad;
+
+import java.util.ArrayList;
+
+import com.proglogicjlib.data.Pin;
+import com.proglogicjlib.data.SymbolTable;
+
+public class LibpartRegistry {
+	private static final Pin[] NO_PINS = new Pin[0];
+	
+	private SymbolTable symbols;
+	private Pin[][] pins; //pins by ignore case id of the part value
+	
+	/**
+	 * @param libparts libparts of the netlist, the value ids must refer to symbols
+	 * @param symbols symbol table of the netlist
+	 */
+	public LibpartRegistry(ArrayList<KiCadLibparts> libparts, SymbolTable symbols){
+		int id;
+		this.symbols = symbols;
+		this.pins = new Pin[symbols.size()][];
+		
+		for(int i = 0; i < libparts.size(); i++){
+			id = symbols.getIgnoreCaseId(libparts.get(i).getValueId());
+			Pin[] partPins = libparts.get(i).getPins().toArray(new Pin[libparts.get(i).getPins().size()]);
+			
+			if(this.pins[id] == null){
+				this.pins[id] = partPins;
+			}else{//several libparts with the same value, the pins of all of them are used
+				Pin[] temp = new Pin[this.pins[id].length + partPins.length];
+				System.arraycopy(this.pins[id], 0, temp, 0, this.pins[id].length);
+				System.arraycopy(partPins, 0, temp, this.pins[id].length, partPins.length);
+				this.pins[id] = temp;
+			}//end if
+		}//end for(i)
+	}//end constructor
+	
+	/**
+	 * @param valueId SymbolTable id of the part value
+	 * @return shared pins of the part, the array must not be changed. Empty if the part is not known
+	 */
+	public Pin[] getPins(int valueId){
+		int id = this.symbols.getIgnoreCaseId(valueId);
+		if(id < 0 || id >= this.pins.length || this.pins[id] == null) return NO_PINS;
+		return this.pins[id];
+	}//end getPins()
+	
+	/**
+	 * @param value part value, upper and lower case letters are not distinguished
+	 * @return shared pins of the part, the array must not be changed. Empty if the part is not known
+	 */
+	public Pin[] getPins(String value){
+		return getPins(this.symbols.getId(value));
+	}//end getPins()
+	
+}//end class
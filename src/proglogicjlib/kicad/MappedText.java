@@ -0,0 +1,89 @@
+/*BSD 3 clause license
+
+Copyright (c) 2014, Thomas Kinder, info@thinkingsand.com
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification,are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation 
+   and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+   may be used to endorse or promote products derived from this software 
+   without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL Thomas Kinder OR CONTRIBUTORS
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+/**
+ * Character view of a region of a memory mapped netlist file. Each byte of the file is 
+ * one character of the view, which is sufficient for the tokenizer because all characters
+ * that structure a netlist are ASCII characters. Sub sequences are views of the same 
+ * mapping; the bytes are only decoded (UTF-8) when toString() is called.
+ */
+package com.proglogicjlib.kicad;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+public class MappedText implements CharSequence {
+	
+	private static final Charset CHARSET = Charset.forName("UTF-8");
+	
+	private ByteBuffer buffer;
+	private int offset;
+	private int length;
+	
+	/**
+	 * Create a view of a region of the buffer
+	 * @param buffer mapped file content. The buffer is only accessed with absolute get methods, its position is never changed.
+	 * @param offset index of the first byte of the view
+	 * @param length number of bytes of the view
+	 */
+	public MappedText(ByteBuffer buffer, int offset, int length){
+		this.buffer = buffer;
+		this.offset = offset;
+		this.length = length;
+	}//end constructor
+	
+	public int length(){
+		return this.length;
+	}//end length()
+	
+	public char charAt(int index){
+		return (char)(this.buffer.get(this.offset + index) & 0xFF);
+	}//end charAt()
+	
+	public CharSequence subSequence(int start, int end){
+		if(start < 0 || end > this.length || start > end){
+			throw new IndexOutOfBoundsException("start=" + start + " end=" + end + " length=" + this.length);
+		}//end if
+		return new MappedText(this.buffer, this.offset + start, end - start);
+	}//end subSequence()
+	
+	/**
+	 * Decode the bytes of this view into a string
+	 */
+	@Override
+	public String toString(){
+		byte[] bytes = new byte[this.length];
+		ByteBuffer view = this.buffer.duplicate();//own position, the shared buffer is not modified
+		view.position(this.offset);
+		view.get(bytes);
+		return new String(bytes, CHARSET);
+	}//end toString()
+	
+}//end class
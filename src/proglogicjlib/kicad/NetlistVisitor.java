@@ -0,0 +1,102 @@
+/*BSD 3 clause license
+
+Copyright (c) 2014, Thomas Kinder, info@thinkingsand.com
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification,are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation 
+   and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+   may be used to endorse or promote products derived from this software 
+   without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL Thomas Kinder OR CONTRIBUTORS
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+/**
+ * Receives the content of a KiCad netlist while the parser streams through the file.
+ * Use this interface instead of the list returning methods of KiCadParseNetlist when only
+ * a part of the netlist is needed, for instance only the nets or only the component references. 
+ * All text parameters are views of the netlist content, call toString() to keep a value. 
+ * When the netlist is parsed with KiCadParseNetlist.visitNetlistParallel() the callbacks of different sections 
+ * can be called concurrently by different threads.
+ */
+package com.proglogicjlib.kicad;
+
+import com.proglogicjlib.misc.CloseProgramException;
+
+public interface NetlistVisitor {
+	
+	/**
+	 * Called for the source attribute of the design section
+	 * @param source path of the schematic file, for instance /home/user/project/top.sch
+	 */
+	public void onDesign(CharSequence source) throws CloseProgramException;
+	
+	/**
+	 * Called for every component of the components section
+	 * @param ref reference of the component, null if the component does not have a reference
+	 * @param value value of the component, null if the component does not have a value
+	 */
+	public void onComponent(CharSequence ref, CharSequence value) throws CloseProgramException;
+	
+	/**
+	 * Called for every field of the component that has been reported with the last onComponent() call
+	 * @param name name of the field
+	 * @param value value of the field
+	 */
+	public void onField(CharSequence name, CharSequence value) throws CloseProgramException;
+	
+	/**
+	 * Called for every libpart of the libparts section before its pins are reported
+	 * @param part name of the part, this is the value of the components that use this libpart
+	 */
+	public void onLibpart(CharSequence part) throws CloseProgramException;
+	
+	/**
+	 * Called for every pin of a libpart
+	 * @param part name of the part the pin belongs to
+	 * @param num pin number, -1 if the number is not an integer value
+	 * @param name pin name including an optional vector size like data[8]
+	 * @param type electrical type of the pin, for instance input or output
+	 */
+	public void onLibpartPin(CharSequence part, int num, CharSequence name, CharSequence type) throws CloseProgramException;
+	
+	/**
+	 * Called for the name of a net before its nodes are reported
+	 * @param netIndex position of the net in the nets section, starting with 0
+	 * @param name name of the net, for instance /data[3] for a member of the bus data
+	 */
+	public void onNetName(int netIndex, CharSequence name) throws CloseProgramException;
+	
+	/**
+	 * Called for every node of a net
+	 * @param netIndex position of the net in the nets section, starting with 0
+	 * @param ref reference of the component that is connected to the net
+	 * @param pin number of the component pin that is connected to the net
+	 */
+	public void onNetNode(int netIndex, CharSequence ref, int pin) throws CloseProgramException;
+	
+	/**
+	 * Called after all nodes of a net have been reported
+	 * @param netIndex position of the net in the nets section, starting with 0
+	 * @param nodeCount number of nodes of the net
+	 */
+	public void onNetEnd(int netIndex, int nodeCount) throws CloseProgramException;
+	
+}//end interface
@@ -0,0 +1,50 @@
+/*BSD 3 clause license
+
+Copyright (c) 2014, Thomas Kinder, info@thinkingsand.com
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification,are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation 
+   and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+   may be used to endorse or promote products derived from this software 
+   without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL Thomas Kinder OR CONTRIBUTORS
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+/**
+ * Empty implementation of the NetlistVisitor. Extend this class and only override the 
+ * methods for the netlist content you are interested in.
+ */
+package com.proglogicjlib.kicad;
+
+import com.proglogicjlib.misc.CloseProgramException;
+
+public abstract class NetlistVisitorAdapter implements NetlistVisitor {
+
+	public void onDesign(CharSequence source) throws CloseProgramException {}
+	public void onComponent(CharSequence ref, CharSequence value) throws CloseProgramException {}
+	public void onField(CharSequence name, CharSequence value) throws CloseProgramException {}
+	public void onLibpart(CharSequence part) throws CloseProgramException {}
+	public void onLibpartPin(CharSequence part, int num, CharSequence name, CharSequence type) throws CloseProgramException {}
+	public void onNetName(int netIndex, CharSequence name) throws CloseProgramException {}
+	public void onNetNode(int netIndex, CharSequence ref, int pin) throws CloseProgramException {}
+	public void onNetEnd(int netIndex, int nodeCount) throws CloseProgramException {}
+	
+}//end class
@@ -0,0 +1,100 @@
+/*BSD 3 clause license
+
+Copyright (c) 2014, Thomas Kinder, info@thinkingsand.com
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification,are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation 
+   and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+   may be used to endorse or promote products derived from this software 
+   without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL Thomas Kinder OR CONTRIBUTORS
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+/**
+ * Progress and cancellation of one conversion. The conversion reports its progress per phase and checks for 
+ * cancellation at the same points, so a cancelled conversion stops within a few hundred components or nets.
+ * A cancelled conversion ends with a CancellationException and does not leave a partly written file behind.
+ */
+package com.proglogicjlib.misc;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class ConversionMonitor {
+	/**Phases of a conversion*/
+	public static final int PHASE_BLOCKS_PARSED = 0;
+	public static final int PHASE_COMPONENTS_CREATED = 1;
+	public static final int PHASE_NETS_BOUND = 2;
+	public static final int PHASE_INSTANCES_RENDERED = 3;
+	public static final int PHASE_BYTES_WRITTEN = 4;
+	private static final int PHASE_COUNT = 5;
+	
+	/**Number of components, nets or instances between two progress reports of a loop*/
+	public static final int PROGRESS_STEP = 256;
+	
+	private final ProgressListener listener;
+	private final AtomicLongArray done = new AtomicLongArray(PHASE_COUNT);
+	private volatile boolean cancelled = false;
+	
+	/**
+	 * @param listener receives the progress, null = only cancellation is supported
+	 */
+	public ConversionMonitor(ProgressListener listener){
+		this.listener = listener;
+	}
+	
+	/**
+	 * Request the conversion to stop at the next check
+	 */
+	public void cancel(){this.cancelled = true;}
+	
+	/**
+	 * @return true if the conversion has been cancelled
+	 */
+	public boolean isCancelled(){return this.cancelled;}
+	
+	/**
+	 * @throws CancellationException if the conversion has been cancelled
+	 */
+	public void checkCancelled(){
+		if(this.cancelled) throw new CancellationException("Conversion has been cancelled");
+	}//end checkCancelled()
+	
+	/**
+	 * Report progress of a phase and check for cancellation
+	 * @param phase one of the PHASE_ constants
+	 * @param amount work that has been done since the last report of the phase
+	 * @param total total amount of work of the phase, -1 if it is not known
+	 * @throws CancellationException if the conversion has been cancelled
+	 */
+	public void progress(int phase, long amount, long total){
+		this.checkCancelled();
+		long phaseDone = this.done.addAndGet(phase, amount);
+		if(this.listener != null) this.listener.onProgress(phase, phaseDone, total);
+	}//end progress()
+	
+	/**
+	 * @param phase one of the PHASE_ constants
+	 * @return work of the phase that has been reported so far
+	 */
+	public long getDone(int phase){return this.done.get(phase);}
+	
+}//end class
@@ -30,6 +30,7 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package com.proglogicjlib.misc;
 
+import java.awt.GraphicsEnvironment;
 import java.util.ArrayList;
 
 import javax.swing.JOptionPane;
@@ -37,11 +38,11 @@ import javax.swing.JOptionPane;
 
 public class InfoAndMessages {
 	//reserved keywords
-	private static String[] reservedString = {
+	private static final String[] reservedString = {
 		"TOP_IN" //id 0
 	};
 	
-	public static int RES_TOP_IN_ID = 0;
+	public static final int RES_TOP_IN_ID = 0;
 	
 	/**
 	 * This method checks weather or not the parameter keyword is 
@@ -60,29 +61,46 @@ public class InfoAndMessages {
 	}//end containsReservedKeyword()
 	
 	//Global general definitions valid for the complete software
-	public static String PROGRAM_NAME = "FPGAdesigner";
+	public static final String PROGRAM_NAME = "FPGAdesigner";
+	
+	private static volatile boolean showDialogs = true;
+	
+	/**
+	 * Select if errors can be shown in dialogs at all. showError() only throws the CloseProgramException, the dialog is 
+	 * shown by showErrorDialog() on the thread that receives the exception, see KiCadToVhdl.setShowDialogs(). 
+	 * Disable the dialogs for programs without a display, the message of the exception is the only report of the error then.
+	 * @param showDialogs true = dialogs are allowed (default), false = no dialogs
+	 */
+	public static void setShowDialogs(boolean showDialogs){InfoAndMessages.showDialogs = showDialogs;}
+	public static boolean getShowDialogs(){return InfoAndMessages.showDialogs;}
 	
 	/**
-	 * Show an error message. The program will be closed with System.exit(-1)
-	 * after the user acknowledge the JOptionPane window. 
+	 * Report an error. The error is thrown as CloseProgramException, errors can occur on pool threads and 
+	 * are therefore shown by showErrorDialog() where the exception is caught.
 	 * @param code
 	 * @param message
 	 * @throws CloseProgramException 
 	 */
 	public static void showError(String code, String message) throws CloseProgramException{//TODO remove!!!!
-		JOptionPane.showMessageDialog(null, getErrorCode(code) + " " + message);
 		//MainGUI.setTextArea("Error occured.");
 		//System.exit(-1);
 		throw new CloseProgramException(getErrorCode(code) + " " + message);
 	}//end showEror()
 	
 	public static void showError(String message) throws CloseProgramException{
-		JOptionPane.showMessageDialog(null, message);
 		//MainGUI.setTextArea("Error occured.");
 		//System.exit(-1);
 		throw new CloseProgramException(message);
 	}//end show Error()
 	
+	/**
+	 * Show the message of an error in a dialog if dialogs are allowed and there is a display
+	 * @param message
+	 */
+	public static void showErrorDialog(String message){
+		if(showDialogs && !GraphicsEnvironment.isHeadless()) JOptionPane.showMessageDialog(null, message);
+	}//end showErrorDialog()
+	
 	/**
 	 * Show a warning messages. This method displays a ArrayList of strings in 
 	 * a JOptionPane Window for warning messages. The programm will NOT be closed
@@ -121,9 +139,9 @@ public class InfoAndMessages {
 	public static String getErrorCode(String code){
 		return ERR_STRING + code;
 	}
-	public static String ERR_STRING = "[ERR] ";
-	public static String INFO_STRING = "[INFO] ";
-	public static String WARN_STRING = "[WARNING] ";
+	public static final String ERR_STRING = "[ERR] ";
+	public static final String INFO_STRING = "[INFO] ";
+	public static final String WARN_STRING = "[WARNING] ";
 	
 	
 	
@@ -0,0 +1,249 @@
+/*BSD 3 clause license
+
+Copyright (c) 2014, Thomas Kinder, info@thinkingsand.com
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification,are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation 
+   and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+   may be used to endorse or promote products derived from this software 
+   without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL Thomas Kinder OR CONTRIBUTORS
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package com.proglogicjlib.vhdl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.proglogicjlib.data.Pin;
+
+/**
+ * Connectivity of a bound design stored in primitive int arrays. Every pin of the design has a pin id, 
+ * the pins of component c have the ids getPinId(c, 0) to getPinId(c, pinCount-1). The pins of a net are
+ * stored in one array range per net (net to pins), every pin knows its net (pin to net). All queries
+ * need constant time.
+ * Nets have to be added in ascending order with addPin(), the pins of a net must be added one after another. 
+ */
+public class ConnectivityGraph {
+	private ArrayList<VhdlComponent> components;
+	private int[] pinStart;		//component -> id of the first pin, pinStart[componentCount] = pinCount
+	private int[] pinComponent;	//pin -> component
+	private int[] pinNet;		//pin -> net, -1 = not connected
+	
+	private int[] netStart;		//net -> first index in netPins
+	private int[] netEnd;		//net -> index after the last pin in netPins
+	private int[] netPins;		//pins of all nets
+	private int[] netDriver;	//net -> first pin that drives the net, -1 = no driver
+	private int[] netDriverCount;
+	private int pinCount;
+	private int size;
+	
+	/**
+	 * Create an empty graph, all pins of the components must already exist
+	 * @param components all components of the design including the top level components
+	 * @param netCount number of nets of the design
+	 */
+	public ConnectivityGraph(ArrayList<VhdlComponent> components, int netCount){
+		this.components = components;
+		this.pinStart = new int[components.size() + 1];
+		for(int i = 0; i < components.size(); i++){
+			this.pinStart[i+1] = this.pinStart[i] + components.get(i).getVhdlPinCount();
+		}//end for(i)
+		this.pinCount = this.pinStart[components.size()];
+		
+		this.pinComponent = new int[this.pinCount];
+		this.pinNet = new int[this.pinCount];
+		for(int i = 0; i < components.size(); i++){
+			for(int pin = this.pinStart[i]; pin < this.pinStart[i+1]; pin++){
+				this.pinComponent[pin] = i;
+				this.pinNet[pin] = -1;
+			}//end for(pin)
+		}//end for(i)
+		
+		this.netStart = new int[netCount];
+		this.netEnd = new int[netCount];
+		this.netDriver = new int[netCount];
+		this.netDriverCount = new int[netCount];
+		this.netPins = new int[Math.max(16, this.pinCount)];
+		Arrays.fill(this.netDriver, -1);
+		this.size = 0;
+	}//end constructor
+	
+	/**
+	 * Connect a pin to a net 
+	 * @param net index of the net, must not be smaller than the net of the last call
+	 * @param component index of the component in the component list of the graph
+	 * @param pinIndex index of the pin in the pin list of the component
+	 */
+	public void addPin(int net, int component, int pinIndex){
+		int pin = getPinId(component, pinIndex);
+		
+		if(this.netEnd[net] == 0 && this.netStart[net] == 0){//first pin of the net
+			this.netStart[net] = this.size;
+		}//end if
+		if(this.size == this.netPins.length){
+			int[] temp = new int[this.size * 2];
+			System.arraycopy(this.netPins, 0, temp, 0, this.size);
+			this.netPins = temp;
+		}//end if
+		
+		this.netPins[this.size++] = pin;
+		this.netEnd[net] = this.size;
+		this.pinNet[pin] = net;
+		
+		if(isDriver(this.components.get(component).getVhdlPinData(pinIndex))){
+			if(this.netDriver[net] < 0) this.netDriver[net] = pin;
+			this.netDriverCount[net]++;
+		}//end if
+	}//end addPin()
+	
+	/**
+	 * Check if a pin drives its net. Outputs of components and inputs of the top level drive a net.
+	 * @param pin
+	 * @return
+	 */
+	public static boolean isDriver(Pin pin){
+		if(pin instanceof VhdlPin && ((VhdlPin)pin).getIsTopLevel()){
+			return pin.getType().equals(Pin.TYPE_IN);//type of top level pins is seen from the inside of the design
+		}//end if
+		return pin.getType().equals(Pin.TYPE_OUT);
+	}//end isDriver()
+	
+	public int getNetCount(){return this.netStart.length;}
+	public int getPinCount(){return this.pinCount;}
+	public int getComponentCount(){return this.components.size();}
+	public VhdlComponent getComponent(int component){return this.components.get(component);}
+	
+	/**
+	 * @param component index of the component in the component list of the graph
+	 * @param pinIndex index of the pin in the pin list of the component
+	 * @return pin id
+	 */
+	public int getPinId(int component, int pinIndex){return this.pinStart[component] + pinIndex;}
+	
+	/**
+	 * @param pin pin id
+	 * @return component index of the pin
+	 */
+	public int getPinComponent(int pin){return this.pinComponent[pin];}
+	
+	/**
+	 * @param pin pin id
+	 * @return index of the pin in the pin list of its component
+	 */
+	public int getPinIndex(int pin){return pin - this.pinStart[this.pinComponent[pin]];}
+	
+	/**
+	 * @param pin pin id
+	 * @return pin object, creates the pin objects of a component that uses shared pins, see VhdlComponent.setVhdlPinTemplates()
+	 */
+	public VhdlPin getPin(int pin){return this.components.get(this.pinComponent[pin]).getVhdlPins().get(getPinIndex(pin));}
+	
+	/**
+	 * @param pin pin id
+	 * @return number, name, type and size of the pin without creating the pin objects of the component
+	 */
+	public Pin getPinData(int pin){return this.components.get(this.pinComponent[pin]).getVhdlPinData(getPinIndex(pin));}
+	
+	/**
+	 * @param pin pin id
+	 * @return net of the pin, -1 if the pin is not connected
+	 */
+	public int getPinNet(int pin){return this.pinNet[pin];}
+	
+	/**
+	 * @param net
+	 * @return number of pins connected to the net
+	 */
+	public int getNetPinCount(int net){return this.netEnd[net] - this.netStart[net];}
+	
+	/**
+	 * @param net
+	 * @param i 0 to getNetPinCount(net)-1
+	 * @return pin id of the i-th pin of the net
+	 */
+	public int getNetPin(int net, int i){return this.netPins[this.netStart[net] + i];}
+	
+	/**
+	 * @param net
+	 * @return pin id of the first pin that drives the net, -1 if the net has no driver
+	 */
+	public int getNetDriver(int net){return this.netDriver[net];}
+	
+	/**
+	 * @param net
+	 * @return number of pins that drive the net
+	 */
+	public int getNetDriverCount(int net){return this.netDriverCount[net];}
+	
+	/**
+	 * @param net
+	 * @return number of pins of the net that are not driving it
+	 */
+	public int getFanout(int net){return getNetPinCount(net) - this.netDriverCount[net];}
+	
+	/**
+	 * Find the components that can influence a top level output. The search walks backwards from the nets of the 
+	 * top level outputs to all components that may drive these nets and continues at the nets of their inputs.
+	 * Pins that are neither inputs nor outputs are treated as both. Top level components are always live.
+	 * @return live flag of every component index
+	 */
+	public boolean[] getLiveComponents(){
+		boolean[] live = new boolean[this.components.size()];
+		boolean[] netQueued = new boolean[this.netStart.length];
+		int[] queue = new int[this.netStart.length];
+		int head = 0;
+		int tail = 0;
+		
+		//nets of the top level outputs, the type of a top level pin is the direction of its port
+		for(int c = 0; c < this.components.size(); c++){
+			if(!this.components.get(c).getIsTopLevel()) continue;
+			live[c] = true;
+			for(int pin = this.pinStart[c]; pin < this.pinStart[c+1]; pin++){
+				int net = this.pinNet[pin];
+				if(net >= 0 && !netQueued[net] && Pin.TYPE_OUT.equals(getPinData(pin).getType())){
+					netQueued[net] = true;
+					queue[tail++] = net;
+				}//end if
+			}//end for(pin)
+		}//end for(c)
+		
+		while(head < tail){
+			int net = queue[head++];
+			for(int i = this.netStart[net]; i < this.netEnd[net]; i++){
+				int c = this.pinComponent[this.netPins[i]];
+				if(live[c] || Pin.TYPE_IN.equals(getPinData(this.netPins[i]).getType())) continue;//inputs do not drive the net
+				
+				live[c] = true;
+				for(int pin = this.pinStart[c]; pin < this.pinStart[c+1]; pin++){
+					int input = this.pinNet[pin];
+					if(input >= 0 && !netQueued[input] && !Pin.TYPE_OUT.equals(getPinData(pin).getType())){
+						netQueued[input] = true;
+						queue[tail++] = input;
+					}//end if
+				}//end for(pin)
+			}//end for(i)
+		}//end while
+		
+		return live;
+	}//end getLiveComponents()
+	
+}//end class
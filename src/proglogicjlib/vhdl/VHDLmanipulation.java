@@ -34,35 +34,37 @@ import java.awt.Toolkit;
 import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.StringSelection;
 import java.awt.datatransfer.Transferable;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import com.proglogicjlib.misc.WarningException;
 
 
 public class VHDLmanipulation {
 	
-	public static String GENERIC_TO_FIELD_ERROR_ID = "(VhdlManip:001)";
-	public static String GENERIC_TO_FIELD_ERROR = GENERIC_TO_FIELD_ERROR_ID + " Generic could not be converted to field. Missing charactes like brackets \";\" or \":\"";
+	public static final String GENERIC_TO_FIELD_ERROR_ID = "(VhdlManip:001)";
+	public static final String GENERIC_TO_FIELD_ERROR = GENERIC_TO_FIELD_ERROR_ID + " Generic could not be converted to field. Missing charactes like brackets \";\" or \":\"";
 	
-	public static String GENERIC_TO_FIELD_DATATYPE_ERROR_ID = "(VhdlManip:002)";
-	public static String GENERIC_TO_FIELD_DATATYPE_ERROR = GENERIC_TO_FIELD_DATATYPE_ERROR_ID + " Datatype of one generic is not supported.";
+	public static final String GENERIC_TO_FIELD_DATATYPE_ERROR_ID = "(VhdlManip:002)";
+	public static final String GENERIC_TO_FIELD_DATATYPE_ERROR = GENERIC_TO_FIELD_DATATYPE_ERROR_ID + " Datatype of one generic is not supported.";
 	
-	public static String GENERIC_TO_FIELD_SIZE_IS_NO_INTEGER_ERROR_ID = "(VhdlManip:003)";
-	public static String GENERIC_TO_FIELD_SIZE_IS_NO_INTEGER_ERROR = GENERIC_TO_FIELD_SIZE_IS_NO_INTEGER_ERROR_ID + " The upper and lower size limits of a generic vector are no integer values.";
+	public static final String GENERIC_TO_FIELD_SIZE_IS_NO_INTEGER_ERROR_ID = "(VhdlManip:003)";
+	public static final String GENERIC_TO_FIELD_SIZE_IS_NO_INTEGER_ERROR = GENERIC_TO_FIELD_SIZE_IS_NO_INTEGER_ERROR_ID + " The upper and lower size limits of a generic vector are no integer values.";
 	
-	public static String PORT_TO_PIN_ERROR_ID = "(VhdlManip:004)";
-	public static String PORT_TO_PIN_ERROR = PORT_TO_PIN_ERROR_ID + " Port could not be converted to pin. Missing charactes like brackets \";\" or \":\"";
+	public static final String PORT_TO_PIN_ERROR_ID = "(VhdlManip:004)";
+	public static final String PORT_TO_PIN_ERROR = PORT_TO_PIN_ERROR_ID + " Port could not be converted to pin. Missing charactes like brackets \";\" or \":\"";
 	
-	public static String PORT_TO_PIN_DATATYPE_ERROR_ID = "(VhdlManip:005)";
-	public static String PORT_TO_PIN_DATATYPE_ERROR = PORT_TO_PIN_DATATYPE_ERROR_ID + " Datatype of one port is not supported.";
+	public static final String PORT_TO_PIN_DATATYPE_ERROR_ID = "(VhdlManip:005)";
+	public static final String PORT_TO_PIN_DATATYPE_ERROR = PORT_TO_PIN_DATATYPE_ERROR_ID + " Datatype of one port is not supported.";
 	
-	public static String PORT_TO_PIN_SIZE_IS_NO_INTEGER_ERROR_ID = "(VhdlManip:006)";
-	public static String PORT_TO_PIN_SIZE_IS_NO_INTEGER_ERROR = PORT_TO_PIN_SIZE_IS_NO_INTEGER_ERROR_ID + " The upper and lower size limits of a port vector are no integer values.";
+	public static final String PORT_TO_PIN_SIZE_IS_NO_INTEGER_ERROR_ID = "(VhdlManip:006)";
+	public static final String PORT_TO_PIN_SIZE_IS_NO_INTEGER_ERROR = PORT_TO_PIN_SIZE_IS_NO_INTEGER_ERROR_ID + " The upper and lower size limits of a port vector are no integer values.";
 
-	public static String GENERIC_DOES_NOT_EXIST_ID = "(VhdlManip:007)";
-	public static String GENERIC_DOES_NOT_EXIST = GENERIC_DOES_NOT_EXIST_ID + " VHDL file does not have any generics.";
+	public static final String GENERIC_DOES_NOT_EXIST_ID = "(VhdlManip:007)";
+	public static final String GENERIC_DOES_NOT_EXIST = GENERIC_DOES_NOT_EXIST_ID + " VHDL file does not have any generics.";
 	
-	public static String PORT_DOES_NOT_EXIST_ID = "(VhdlManip:008)";
-	public static String PORT_DOES_NOT_EXIST = PORT_DOES_NOT_EXIST_ID + " VHDL file does not have any ports.";
+	public static final String PORT_DOES_NOT_EXIST_ID = "(VhdlManip:008)";
+	public static final String PORT_DOES_NOT_EXIST = PORT_DOES_NOT_EXIST_ID + " VHDL file does not have any ports.";
 
 	
 	/**
@@ -70,11 +72,21 @@ public class VHDLmanipulation {
 	 * @param s string that shall be copied to clip board
 	 */
 	public static void writeToClipboard(String s){
-	  Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
-	  Transferable transferable = new StringSelection(s);
-	  clipboard.setContents(transferable, null);
+		SystemClipboard.write(s);
 	}//end writeToClipBoard()
 	
+	/**
+	 * Holds the AWT types of the clip board access, so that they are only loaded when the clip board is used
+	 * and not when VHDLmanipulation is used by a headless conversion
+	 */
+	private static class SystemClipboard {
+		private static void write(String s){
+		  Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
+		  Transferable transferable = new StringSelection(s);
+		  clipboard.setContents(transferable, null);
+		}//end write()
+	}//end class
+	
 	
 	/**
 	 * Set the maximum code length. This value can be used later
@@ -121,54 +133,30 @@ public class VHDLmanipulation {
 	 */
 	public ArrayList<VhdlData> lineUpKeyword(ArrayList<VhdlData> vhdlData, String keyWord, String leadingString, Boolean removeMultipleWhiteSpaces, int leadingWhiteSpaces){
 			if(vhdlData == null || keyWord == null) return null;
-			int maxKeywordIndex = 0;
-			int indexKeyWord = 0;
-			ArrayList<Integer> keywordLineFound = new ArrayList<Integer>(); 
-			ArrayList<Integer> keywordIndexFound = new ArrayList<Integer>();
-			ArrayList<String> newData = new ArrayList<String>();
+			VhdlAlignment alignment = new VhdlAlignment(keyWord);
 			String code = null;
-			int tempIndex;
 			
-			//Determine maximum index of keyword position and remove multiple white spaces, remember the the lines where the code was found and the index position
+			//remember the position of the keyword in every line that contains code
 			for(int i = 0; i < vhdlData.size(); i++){
 				code = vhdlData.get(i).getCode();
-				tempIndex = vhdlData.get(i).getCodeIndex();
-				
-				if (removeMultipleWhiteSpaces){
-					code = removeMultiWhiteSpace(code);
-				}//end if
 				
-				if(tempIndex >= 0){//line contains code
-					//code = code.trim();
-					if(leadingString != null)code = leadingString + code; //add a leading string for signal conversion
-					
-					indexKeyWord = code.indexOf(keyWord);
-					
-					if(indexKeyWord >= 0){//line contains kyword
-						keywordLineFound.add(i);
-						keywordIndexFound.add(indexKeyWord);
-						if(indexKeyWord > maxKeywordIndex)maxKeywordIndex = indexKeyWord; 
-					}//end if
-					
-					newData.add(code);
+				if(vhdlData.get(i).getCodeIndex() >= 0){//line contains code
+					if (removeMultipleWhiteSpaces) code = removeMultiWhiteSpace(code);
+					if(leadingString != null) code = leadingString + code; //add a leading string for signal conversion
+					alignment.addLine(code, true);
+				}else{
+					alignment.addLine("", false);
 				}//end if
-				else{
-					newData.add("");
-				}//end else		
 			}//end for
 			
 			//reorder all strings that are containing the keyWord
-			if(keywordLineFound.size() > 0){
-				for(int i = 0; i < keywordLineFound.size(); i++){
-					code = newData.get(keywordLineFound.get(i));
-					String firstPart = code.substring(0,keywordIndexFound.get(i));
-					String secondPart = code.substring(keywordIndexFound.get(i));
-					int difference = maxKeywordIndex - firstPart.length();
-					String code_t = whiteSpaceCreator(leadingWhiteSpaces) + firstPart + whiteSpaceCreator(difference) + secondPart;
+			for(int i = 0; i < vhdlData.size(); i++){
+				if(alignment.hasColumns(i)){
+					String code_t = whiteSpaceCreator(leadingWhiteSpaces) + alignment.getLine(i);
 					if(code_t.length() > this.maxLengthCode)this.maxLengthCode = code_t.length() ; //TODO : Check if this statement is really necessary and if not make a static method out of it
-					vhdlData.get(keywordLineFound.get(i)).setCode(code_t);
-				}//end for
-			}//end if
+					vhdlData.get(i).setCode(code_t);
+				}//end if
+			}//end for
 			
 			if(leadingWhiteSpaces > 0){
 				for(int i = 0; i < vhdlData.size(); i++ ){
@@ -247,13 +235,34 @@ public class VHDLmanipulation {
 	 * @return
 	 */
 	public static String whiteSpaceCreator(int no){
-		String returnStr = "";
 		if(no <= 0) return "";
+		if(no <= WHITE_SPACES.length()) return WHITE_SPACES.substring(0, no);
+		
+		StringBuilder returnStr = new StringBuilder(no);
 		for(int i = 0; i < no ; i++){
-			returnStr = returnStr + " ";
+			returnStr.append(' ');
 		}//end for
-		return returnStr;
+		return returnStr.toString();
 	}//end whiteSpaceCreator
+	private static final String WHITE_SPACES = "                                                                                                                                ";
+	
+	/**
+	 * Append white spaces to an output without creating a string
+	 * @param out
+	 * @param no number of white spaces
+	 * @throws IOException
+	 */
+	public static void appendWhiteSpace(Appendable out, int no) throws IOException{
+		while(no > 0){
+			int length = Math.min(no, WHITE_SPACES.length());
+			if(out instanceof Writer){
+				((Writer) out).write(WHITE_SPACES, 0, length);
+			}else{
+				out.append(WHITE_SPACES, 0, length);
+			}//end if
+			no -= length;
+		}//end while
+	}//end appendWhiteSpace()
 	
 	/**
 	 * This method removes multiple white spaces " " from a string
@@ -379,10 +388,11 @@ public class VHDLmanipulation {
 	 * @return
 	 */
 	public ArrayList<VhdlData> alignCodeBlock(ArrayList<VhdlData> vhdlData){
-		vhdlData = this.lineUpKeyword(vhdlData, " :", "", false, 0);
-		vhdlData = this.lineUpKeyword(vhdlData, " :=", "", false, 0);
+		VhdlAlignment alignment = new VhdlAlignment(" :", " :=");
+		alignment.addLines(vhdlData);
+		if(alignment.getMaxLength() > this.maxLengthCode) this.maxLengthCode = alignment.getMaxLength();
 		
-		return vhdlData;
+		return alignment.setCode(vhdlData);
 	}//end alignCodeBlock()
 
 	/**
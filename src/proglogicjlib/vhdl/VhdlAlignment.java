@@ -0,0 +1,310 @@
+/*BSD 3 clause license
+
+Copyright (c) 2014, Thomas Kinder, info@thinkingsand.com
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification,are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation 
+   and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+   may be used to endorse or promote products derived from this software 
+   without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL Thomas Kinder OR CONTRIBUTORS
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package com.proglogicjlib.vhdl;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A block of VHDL code lines with aligned columns. The position of every alignment column is recorded while
+ * a line is produced, the padding is only added when the block is written. Column k is aligned relative 
+ * to column k-1 of the same line, e.g. " :" and " :=" for signals or "=>" for port maps.
+ * Usage: append() the text of a line, markColumn() in front of a keyword, endLine(), write().
+ */
+public class VhdlAlignment {
+	private static final int INITIAL_LINES = 16;
+	
+	private String[] keyWords;
+	private StringBuilder text = new StringBuilder();
+	private int[] lineEnd = new int[INITIAL_LINES];	//line -> index after the last character in text
+	private int[] columns;							//line * columnCount + column -> index in text, -1 = column not marked
+	private int[] columnWidth;						//maximum width from the previous column to this column
+	private int columnCount;
+	private int lineCount;
+	private char[] buffer;
+	
+	/**
+	 * Create an empty block
+	 * @param keyWords the keywords of the columns, only needed for addLine(), addLines() and align()
+	 */
+	public VhdlAlignment(String... keyWords){
+		this.keyWords = keyWords;
+		this.columnCount = keyWords.length;
+		this.columns = new int[INITIAL_LINES * this.columnCount];
+		this.columnWidth = new int[this.columnCount];
+		Arrays.fill(this.columns, -1);
+	}//end constructor
+	
+	/**
+	 * Remove all lines, the block can be used again
+	 */
+	public void clear(){
+		this.text.setLength(0);
+		Arrays.fill(this.columns, 0, this.lineCount * this.columnCount, -1);
+		Arrays.fill(this.columnWidth, 0);
+		this.lineCount = 0;
+	}//end clear()
+	
+	/*//////////////////////////////////////////////////////////////////////////////////////////////////////
+	 * Produce lines
+	 *//////////////////////////////////////////////////////////////////////////////////////////////////////
+	public VhdlAlignment append(CharSequence s){
+		this.text.append(s);
+		return this;
+	}//end append()
+	
+	public VhdlAlignment append(char c){
+		this.text.append(c);
+		return this;
+	}//end append()
+	
+	public VhdlAlignment appendWhiteSpace(int no){
+		for(int i = 0; i < no; i++){
+			this.text.append(' ');
+		}//end for
+		return this;
+	}//end appendWhiteSpace()
+	
+	/**
+	 * The current position of the current line is the position of a column. The text between the previous
+	 * column and this column will be padded to the widest line of the block. Columns must be marked in order.
+	 * @param column index of the column
+	 */
+	public void markColumn(int column){
+		this.ensureLineCapacity();
+		this.columns[this.lineCount * this.columnCount + column] = this.text.length();
+	}//end markColumn()
+	
+	/**
+	 * Remove a character from the current line, the marked columns are moved accordingly
+	 * @param c
+	 */
+	public void removeFromLine(char c){
+		this.ensureLineCapacity();
+		int base = this.lineCount * this.columnCount;
+		for(int i = this.text.length()-1; i >= this.getLineStart(this.lineCount); i--){
+			if(this.text.charAt(i) != c) continue;
+			this.text.deleteCharAt(i);
+			for(int k = 0; k < this.columnCount; k++){
+				if(this.columns[base + k] > i) this.columns[base + k]--;
+			}//end for(k)
+		}//end for(i)
+	}//end removeFromLine()
+	
+	/**
+	 * Finish the current line
+	 */
+	public void endLine(){
+		this.ensureLineCapacity();
+		int base = this.lineCount * this.columnCount;
+		int previous = this.getLineStart(this.lineCount);
+		
+		for(int k = 0; k < this.columnCount; k++){
+			int column = this.columns[base + k];
+			if(column < 0) continue;
+			if(column - previous > this.columnWidth[k]) this.columnWidth[k] = column - previous;
+			previous = column;
+		}//end for(k)
+		
+		this.lineEnd[this.lineCount] = this.text.length();
+		this.lineCount++;
+	}//end endLine()
+	
+	/**
+	 * Add a complete line, the columns are the first positions of the keywords
+	 * @param code
+	 * @param align false = do not align this line
+	 */
+	public void addLine(String code, boolean align){
+		int start = this.text.length();
+		int from = 0;
+		this.text.append(code);
+		
+		if(align){
+			for(int k = 0; k < this.columnCount; k++){
+				int index = code.indexOf(this.keyWords[k], from);
+				if(index < 0) continue;
+				this.ensureLineCapacity();
+				this.columns[this.lineCount * this.columnCount + k] = start + index;
+				from = index;
+			}//end for(k)
+		}//end if
+		this.endLine();
+	}//end addLine()
+	
+	/**
+	 * Add the code of VhdlData lines, lines without a code index are not aligned
+	 * @param vhdlData
+	 */
+	public void addLines(ArrayList<VhdlData> vhdlData){
+		for(int i = 0; i < vhdlData.size(); i++){
+			this.addLine(vhdlData.get(i).getCode(), vhdlData.get(i).getCodeIndex() >= 0);
+		}//end for(i)
+	}//end addLines()
+	
+	/*//////////////////////////////////////////////////////////////////////////////////////////////////////
+	 * Write lines
+	 *//////////////////////////////////////////////////////////////////////////////////////////////////////
+	public int getLineCount(){return this.lineCount;}
+	
+	/**
+	 * Write all lines with aligned columns, every line ends with a line break
+	 * @param out
+	 * @param leadingWhiteSpaces number of white spaces in front of every line
+	 * @throws IOException
+	 */
+	public void write(Appendable out, int leadingWhiteSpaces) throws IOException{
+		for(int i = 0; i < this.lineCount; i++){
+			VHDLmanipulation.appendWhiteSpace(out, leadingWhiteSpaces);
+			this.writeLine(out, i);
+			out.append('\n');
+		}//end for(i)
+	}//end write()
+	
+	/**
+	 * Get one aligned line
+	 * @param line
+	 * @return
+	 */
+	public String getLine(int line){
+		StringBuilder retVal = new StringBuilder();
+		try {
+			this.writeLine(retVal, line);
+		} catch (IOException e) {//a StringBuilder does not throw
+			e.printStackTrace();
+		}
+		return retVal.toString();
+	}//end getLine()
+	
+	/**
+	 * Write the aligned lines back into VhdlData objects, the objects must be the ones that were added with addLines()
+	 * @param vhdlData
+	 * @return vhdlData
+	 */
+	public ArrayList<VhdlData> setCode(ArrayList<VhdlData> vhdlData){
+		for(int i = 0; i < vhdlData.size(); i++){
+			if(this.hasColumns(i)) vhdlData.get(i).setCode(this.getLine(i));
+		}//end for(i)
+		return vhdlData;
+	}//end setCode()
+	
+	/**
+	 * Returns the length of the longest aligned line that has at least one column
+	 * @return
+	 */
+	public int getMaxLength(){
+		int maxLength = 0;
+		for(int i = 0; i < this.lineCount; i++){
+			if(this.hasColumns(i) && this.getLineLength(i) > maxLength) maxLength = this.getLineLength(i);
+		}//end for(i)
+		return maxLength;
+	}//end getMaxLength()
+	
+	/**
+	 * Align the code of VhdlData lines in one pass 
+	 * @param vhdlData
+	 * @param keyWords keywords that are aligned, one column per keyword
+	 * @return vhdlData
+	 */
+	public static ArrayList<VhdlData> align(ArrayList<VhdlData> vhdlData, String... keyWords){
+		VhdlAlignment alignment = new VhdlAlignment(keyWords);
+		alignment.addLines(vhdlData);
+		return alignment.setCode(vhdlData);
+	}//end align()
+	
+	private void writeLine(Appendable out, int line) throws IOException{
+		int base = line * this.columnCount;
+		int previous = this.getLineStart(line);
+		
+		for(int k = 0; k < this.columnCount; k++){
+			int column = this.columns[base + k];
+			if(column < 0) continue;
+			this.writeText(out, previous, column);
+			VHDLmanipulation.appendWhiteSpace(out, this.columnWidth[k] - (column - previous));
+			previous = column;
+		}//end for(k)
+		this.writeText(out, previous, this.lineEnd[line]);
+	}//end writeLine()
+	
+	private int getLineLength(int line){
+		int base = line * this.columnCount;
+		int previous = this.getLineStart(line);
+		int length = 0;
+		
+		for(int k = 0; k < this.columnCount; k++){
+			int column = this.columns[base + k];
+			if(column < 0) continue;
+			length += this.columnWidth[k];
+			previous = column;
+		}//end for(k)
+		return length + this.lineEnd[line] - previous;
+	}//end getLineLength()
+	
+	/**
+	 * Returns true if at least one column of the line has been marked
+	 * @param line
+	 * @return
+	 */
+	public boolean hasColumns(int line){
+		for(int k = 0; k < this.columnCount; k++){
+			if(this.columns[line * this.columnCount + k] >= 0) return true;
+		}//end for(k)
+		return false;
+	}//end hasColumns()
+	
+	/**
+	 * Write a part of the text without creating a string for writers
+	 */
+	private void writeText(Appendable out, int start, int end) throws IOException{
+		if(out instanceof Writer){
+			if(this.buffer == null || this.buffer.length < end - start) this.buffer = new char[Math.max(end - start, 256)];
+			this.text.getChars(start, end, this.buffer, 0);
+			((Writer) out).write(this.buffer, 0, end - start);
+		}else{
+			out.append(this.text, start, end);
+		}//end if
+	}//end writeText()
+	
+	private int getLineStart(int line){
+		return line == 0 ? 0 : this.lineEnd[line-1];
+	}//end getLineStart()
+	
+	private void ensureLineCapacity(){
+		if(this.lineCount < this.lineEnd.length) return;
+		int oldSize = this.lineEnd.length;
+		this.lineEnd = Arrays.copyOf(this.lineEnd, oldSize * 2);
+		this.columns = Arrays.copyOf(this.columns, oldSize * 2 * this.columnCount);
+		Arrays.fill(this.columns, oldSize * this.columnCount, this.columns.length, -1);
+	}//end ensureLineCapacity()
+	
+}//end class
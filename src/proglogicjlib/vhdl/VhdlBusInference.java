@@ -0,0 +1,214 @@
+/*BSD 3 clause license
+
+Copyright (c) 2014, Thomas Kinder, info@thinkingsand.com
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification,are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation 
+   and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+   may be used to endorse or promote products derived from this software 
+   without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL Thomas Kinder OR CONTRIBUTORS
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package com.proglogicjlib.vhdl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+
+/**
+ * Combines the nets of a bus to one vector signal. KiCad codes every bit of a bus as a net of its own, the bus 
+ * members are named like /data[3]. All members of a bus that are internal std_logic or std_ulogic nets without 
+ * vector pins become elements of the vector data, the pins of the nets are connected to data(3) then, 
+ * see VhdlNet.setVectorElement(). 
+ * Add the named nets with addNet() and call assignBuses() after all pins have been connected to their nets.
+ */
+public class VhdlBusInference {
+	
+	private static final String BUS_PREFIX = "bus_";
+	
+	/**Named nets by the base name of their bus, in the order they have been added*/
+	private LinkedHashMap<String, ArrayList<VhdlNet>> buses = new LinkedHashMap<String, ArrayList<VhdlNet>>();
+	private HashMap<String, String> baseNames = new HashMap<String, String>();
+	private IdentityHashMap<VhdlNet, Integer> netIndexes = new IdentityHashMap<VhdlNet, Integer>();
+	private ArrayList<String> vectorNames = new ArrayList<String>();
+	
+	/**
+	 * Get the index of a bus member name
+	 * @param name net name like /data[3]
+	 * @return index within the bus or -1 if the name is not a bus member name
+	 */
+	public static int getBusIndex(CharSequence name){
+		int end = name.length() - 1;
+		if(end < 2 || name.charAt(end) != ']') return -1;
+		
+		int index = 0;
+		int i = end - 1;
+		for(; i >= 0 && name.charAt(i) >= '0' && name.charAt(i) <= '9'; i--){
+			if(end - 1 - i >= 6) return -1;//too many digits for a bus
+			index = index + (name.charAt(i) - '0') * VhdlBusInference.power10(end - 1 - i);
+		}//end for(i)
+		
+		if(i == end - 1 || i < 1 || name.charAt(i) != '[') return -1;
+		return index;
+	}//end getBusIndex()
+	
+	private static int power10(int exponent){
+		int result = 1;
+		for(int i = 0; i < exponent; i++) result *= 10;
+		return result;
+	}//end power10()
+	
+	/**
+	 * Get the base name of a bus member name as VHDL identifier, /cpu/data[3] results in cpu_data
+	 * @param name net name of a bus member
+	 * @return
+	 */
+	public static String getBusBaseName(String name){
+		StringBuilder base = new StringBuilder();
+		String path = name.substring(0, name.lastIndexOf('['));
+		
+		for(int i = 0; i < path.length(); i++){
+			char c = path.charAt(i);
+			boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+			if(valid){
+				base.append(c);
+			}else if(base.length() > 0 && base.charAt(base.length()-1) != '_'){//no leading or double underscores
+				base.append('_');
+			}//end if
+		}//end for(i)
+		
+		if(base.length() > 0 && base.charAt(base.length()-1) == '_') base.setLength(base.length()-1);
+		if(base.length() == 0 || (base.charAt(0) >= '0' && base.charAt(0) <= '9')) base.insert(0, BUS_PREFIX);
+		return base.toString();
+	}//end getBusBaseName()
+	
+	/**
+	 * Add a net of the design
+	 * @param net
+	 * @param name net name of the netlist, nets without bus member names are ignored
+	 */
+	public void addNet(VhdlNet net, String name){
+		int index = VhdlBusInference.getBusIndex(name);
+		if(net == null || index < 0) return;
+		
+		String base = VhdlBusInference.getBusBaseName(name);
+		ArrayList<VhdlNet> members = this.buses.get(base.toLowerCase());
+		if(members == null){//VHDL is not case sensitive, the first name of the bus is used
+			members = new ArrayList<VhdlNet>();
+			this.buses.put(base.toLowerCase(), members);
+			this.baseNames.put(base.toLowerCase(), base);
+		}//end if
+		members.add(net);
+		this.netIndexes.put(net, index);
+	}//end addNet()
+	
+	/**
+	 * Same as assignBuses(ArrayList, String) for a design whose entity name is not known
+	 */
+	public int assignBuses(ArrayList<VhdlComponent> components){
+		return this.assignBuses(components, null);
+	}//end assignBuses()
+	
+	/**
+	 * Combine the nets of every bus with at least two members to a vector signal. The name of a vector is never a reserved 
+	 * word, the entity name, a component name, an instance label or the name of another signal, it gets the suffix _bus then.
+	 * @param components all components of the design including the top level components, the pins must be connected to their nets
+	 * @param entityName name of the entity of the design, null = not known
+	 * @return number of vector signals that have been created
+	 */
+	public int assignBuses(ArrayList<VhdlComponent> components, String entityName){
+		HashSet<String> usedNames = new HashSet<String>();
+		HashSet<VhdlNet> invalid = new HashSet<VhdlNet>();
+		IdentityHashMap<VhdlNet, String> datatypes = new IdentityHashMap<VhdlNet, String>();
+		
+		//a bus member must only be connected to scalar pins of one std_logic type
+		for(int i = 0; i < components.size(); i++){
+			VhdlComponent comp = components.get(i);
+			usedNames.add(comp.getReference().toLowerCase());//instance labels, component names and signals share one name space
+			usedNames.add(comp.getValue().toLowerCase());
+			for(int k = 0; k < comp.getVhdlPinCount(); k++){
+				VhdlNet net = comp.getVhdlPinNet(k);
+				if(net == null) continue;
+				
+				usedNames.add(net.getName().toLowerCase());
+				if(!this.netIndexes.containsKey(net)) continue;
+				
+				String datatype = comp.getVhdlPinDatatype(k);
+				String known = datatypes.put(net, datatype);
+				if(comp.getIsTopLevel() || net.getIsTopLevel() || net.getIsVectorElement() || comp.getVhdlPinData(k).getIsVector() 
+						|| !comp.getVhdlPinIsSignal(k) || !VhdlBusInference.isBitType(datatype) || (known != null && !known.equalsIgnoreCase(datatype))){
+					invalid.add(net);
+				}//end if
+			}//end for(k)
+		}//end for(i)
+		
+		if(entityName != null) usedNames.add(entityName.toLowerCase());
+		
+		for(String key : this.buses.keySet()){
+			ArrayList<VhdlNet> members = this.buses.get(key);
+			ArrayList<VhdlNet> valid = new ArrayList<VhdlNet>();
+			HashMap<Integer, VhdlNet> byIndex = new HashMap<Integer, VhdlNet>();
+			String datatype = null;
+			int size = 0;
+			
+			for(int i = 0; i < members.size(); i++){
+				VhdlNet net = members.get(i);
+				if(invalid.contains(net) || !datatypes.containsKey(net)) continue;
+				if(byIndex.put(this.netIndexes.get(net), net) != null){//the same bit twice, the bus is ambiguous
+					valid.clear();
+					break;
+				}//end if
+				if(datatype != null && !datatype.equalsIgnoreCase(datatypes.get(net))) continue;
+				datatype = datatypes.get(net);
+				valid.add(net);
+				size = Math.max(size, this.netIndexes.get(net) + 1);
+			}//end for(i)
+			if(valid.size() < 2) continue;
+			
+			String name = this.baseNames.get(key);
+			String unique = name;
+			for(int n = 2; usedNames.contains(unique.toLowerCase()) || VhdlKeywords.isReservedWord(unique); n++){
+				unique = name + "_bus" + (n > 2 ? n : "");
+			}//end for(n)
+			usedNames.add(unique.toLowerCase());
+			
+			for(int i = 0; i < valid.size(); i++){
+				valid.get(i).setVectorElement(unique, this.netIndexes.get(valid.get(i)), size);
+			}//end for(i)
+			this.vectorNames.add(unique);
+		}//end for(members)
+		
+		return this.vectorNames.size();
+	}//end assignBuses()
+	
+	/**
+	 * @return names of the vector signals that have been created by assignBuses()
+	 */
+	public ArrayList<String> getVectorNames(){return this.vectorNames;}
+	
+	private static boolean isBitType(String datatype){
+		return VhdlKeywords.TYPE_STD_LOGIC.equalsIgnoreCase(datatype) || VhdlKeywords.TYPE_STD_ULOGIC.equalsIgnoreCase(datatype);
+	}//end isBitType()
+	
+}//end class
@@ -30,13 +30,55 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package com.proglogicjlib.vhdl;
 
+import java.io.IOException;
 import java.util.ArrayList;
 
+import com.proglogicjlib.misc.WarningException;
+
 public interface VhdlCompInterface {
 
 //standard constructor
 	public ArrayList<VhdlData> getVhdlComponentIntantiation(boolean showUnusedInputs);
-	public ArrayList<VhdlData> getVhdlEntity(boolean getComponent,int leadingWhiteSpaces);
+	public ArrayList<VhdlData> getVhdlEntity(boolean getComponent,int leadingWhiteSpaces) throws WarningException;
+	
+//streaming, write the code lines straight to an output
+	/**
+	 * Write the component instantiation code of getVhdlComponentIntantiation() to an output, every line ends with a line break.
+	 * Implementations can override it to write the code without creating VhdlData objects.
+	 * @param out
+	 * @param showUnusedInputs true = print inputs in VHDL file even though they have not been assigned to any net
+	 * @param leadingWhiteSpaces number of white spaces in front of every line
+	 * @return false if the component does not have any instantiation code
+	 * @throws IOException
+	 */
+	public default boolean writeVhdlComponentInstantiation(Appendable out, boolean showUnusedInputs, int leadingWhiteSpaces) throws IOException{
+		ArrayList<VhdlData> instantiation = this.getVhdlComponentIntantiation(showUnusedInputs);
+		if(instantiation == null) return false;
+		
+		for(int i = 0; i < instantiation.size(); i++){
+			out.append(VHDLmanipulation.whiteSpaceCreator(leadingWhiteSpaces)).append(instantiation.get(i).getCode()).append(instantiation.get(i).getComment()).append('\n');
+		}//end for
+		return true;
+	}//end writeVhdlComponentInstantiation()
+	
+	/**
+	 * Write the entity or component code of getVhdlEntity() to an output, every line ends with a line break.
+	 * @param out
+	 * @param getComponent true = write component code, false = write entity code
+	 * @param leadingWhiteSpaces number of white spaces in front of every line
+	 * @return false if the component does not have an entity
+	 * @throws IOException
+	 * @throws WarningException
+	 */
+	public default boolean writeVhdlEntity(Appendable out, boolean getComponent, int leadingWhiteSpaces) throws IOException, WarningException{
+		ArrayList<VhdlData> entity = this.getVhdlEntity(getComponent, leadingWhiteSpaces);
+		if(entity == null) return false;
+		
+		for(int i = 0; i < entity.size(); i++){
+			out.append(entity.get(i).getCode()).append('\n');
+		}//end for
+		return true;
+	}//end writeVhdlEntity()
 	
 	
 }//end interface
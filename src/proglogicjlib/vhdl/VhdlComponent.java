@@ -34,14 +34,17 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 package com.proglogicjlib.vhdl;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import com.proglogicjlib.data.Component;
+import com.proglogicjlib.data.Pin;
 import com.proglogicjlib.misc.CloseProgramException;
 import com.proglogicjlib.misc.WarningException;
 
 
-public class VhdlComponent extends Component {
+public class VhdlComponent extends Component implements VhdlCompInterface {
 	//Boolean attributes
 	private boolean upperCase; /** Indicates if VHDL keywords shall be printed in upper or lower case letters.*/
 	private boolean isInlineComponent;
@@ -54,6 +57,13 @@ public class VhdlComponent extends Component {
 	private ArrayList<VhdlPin> vhdlPins;
 	private ArrayList<VhdlGeneric> vhdlGenerics;
 	
+	//Flyweight pins: the pins of a part are shared by all its instances, only net and signal state belong to this component.
+	//The VhdlPin objects are created out of the shared pins when the pin list is accessed, see createVhdlPins()
+	private Pin[] pinTemplates;
+	private String pinDatatype;
+	private VhdlNet[] pinNets;
+	private boolean[] pinSignals;
+	
 	//Method to initialize objects variables. 
 	private void initVariablesConstructor(){
 		this.upperCase = false;
@@ -62,6 +72,7 @@ public class VhdlComponent extends Component {
 		this.vhdlPins = new  ArrayList<VhdlPin>();
 		this.vhdlGenerics = new ArrayList<VhdlGeneric>();
 		this.pkgSuffix = "_pkg";
+		this.pinTemplates = null;
 	}
 	
 	public VhdlComponent(){
@@ -158,8 +169,8 @@ public class VhdlComponent extends Component {
 	 * @return Return the array list index of the pin if the pin number has been found. Otherwise return -1
 	 */
 	public int findVhdlPinByNo(int no){
-		for(int i = 0; i < this.vhdlPins.size(); i++){
-			if(this.vhdlPins.get(i).getNo() == no)return i;
+		for(int i = 0; i < this.getVhdlPinCount(); i++){
+			if(this.getVhdlPinData(i).getNo() == no)return i;
 		}
 		return -1;
 	}//end findVhdlPinByNo()
@@ -186,6 +197,7 @@ public class VhdlComponent extends Component {
 	public void setGenericsPins(ArrayList<VhdlGeneric> vhdlGenerics, ArrayList<VhdlPin> vhdlPins){
 	    this.vhdlGenerics = vhdlGenerics;
 		this.vhdlPins = vhdlPins;
+		this.pinTemplates = null;
 	}//end setFieldsPins()
 	
 	/*//////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -221,6 +233,19 @@ public class VhdlComponent extends Component {
 		return VhdlConstructor.createComponentInstantiation(this, this.upperCase, showUnusedInputs); 
 	}//end getVhdlComponentInstantiation()
 	
+	/**
+	 * Write the component instantiation code straight to an output without creating VhdlData objects
+	 * @param out
+	 * @param showUnusedInputs true = print inputs in VHDL file even though they have not been assigned to any net. , false = do not display those inputs
+	 * @param leadingWhiteSpaces number of white spaces in front of every line
+	 * @return true, the instantiation code of a component is always written
+	 * @throws IOException
+	 */
+	public boolean writeVhdlComponentInstantiation(Appendable out, boolean showUnusedInputs, int leadingWhiteSpaces) throws IOException{
+		VhdlConstructor.writeComponentInstantiation(this, this.upperCase, showUnusedInputs, out, leadingWhiteSpaces);
+		return true;
+	}//end writeVhdlComponentInstantiation()
+	
 	/**
 	 * Returns all signal definitions for a VHDL component
 	 * @param upperCase
@@ -230,47 +255,191 @@ public class VhdlComponent extends Component {
 	public ArrayList<VhdlData> getVhdlSignalCode() throws WarningException{
 		ArrayList<VhdlData> retVal = new ArrayList<VhdlData>();
 		VhdlData vhdlData = new VhdlData();
-		String temp = "";
-		int size = 0;
 		
 		//go trough all components and search there for pins that are set as signals. Those pins must be saved and returned
-		for(int k = 0; k < this.getVhdlPins().size(); k++){
-			if(this.vhdlPins.get(k).getIsSignal()){//add signal to return value
+		for(int k = 0; k < this.getVhdlPinCount(); k++){
+			if(this.getVhdlPinIsSignal(k)){//add signal to return value
 				vhdlData = new VhdlData();
-				temp = VhdlKeywords.getKeyword(VhdlKeywords.KEY_SIGNAL_ID, this.upperCase) + " " + this.vhdlPins.get(k).getHDLsigName() + " : ";
-				
-				if(this.getVhdlPins().get(k).getIsVector()){
-					try {
-						size = Integer.parseInt(this.getVhdlPins().get(k).getSize()); 
-						size--;
-						temp = temp + VhdlKeywords.getDataType(this.vhdlPins.get(k).getDatatype(), upperCase, true, "VhdlComponent::")  + "(" + size + " " +  VhdlKeywords.getKeyword(VhdlKeywords.KEY_DOWNTO_ID, this.upperCase) + " 0) := (" + VhdlKeywords.getKeyword(VhdlKeywords.KEY_OTHERS_ID, this.upperCase) + " => '0');";
-					} catch (NumberFormatException e) {
-						temp = temp + VhdlKeywords.getDataType(this.vhdlPins.get(k).getDatatype(), upperCase, true, "VhdlComponent::")  + "(" + this.getReference() + "_" + this.getVhdlPins().get(k).getSize() + " " +  VhdlKeywords.getKeyword(VhdlKeywords.KEY_DOWNTO_ID, this.upperCase) + " 0) := (" + VhdlKeywords.getKeyword(VhdlKeywords.KEY_OTHERS_ID, this.upperCase) + " => '0');";
-					}//en try
-					
-				}else{
-					temp = temp +VhdlKeywords.getDataType(this.vhdlPins.get(k).getDatatype(), upperCase, false, "VhdlComponent::")  + " := '0';";		
-				}//end if
-				
-				vhdlData.setCode(temp, retVal.size());
+				vhdlData.setCode(this.getVhdlSignalDeclaration(k), retVal.size());
 				retVal.add(vhdlData);	
 			}//end if
 		}//end for (k)
-
-		
-		//align code properly
-		//VHDLmanipulation manip = new VHDLmanipulation();
-		//manip.setMaxCodeLength(VHDLmanipulation.findMaxLenghtCode(retVal));
-		//retVal = manip.alignCodeBlock(retVal);
 		
 		return retVal;
 	}//end getVhdlSignalCode()
 	
+	/**
+	 * Add the signal definitions of this component to a signal table
+	 * @param signals
+	 * @throws WarningException
+	 */
+	public void addVhdlSignals(VhdlSignalTable signals) throws WarningException{
+		for(int k = 0; k < this.getVhdlPinCount(); k++){
+			if(this.getVhdlPinIsSignal(k)){
+				VhdlNet net = this.getVhdlPinNet(k);
+				if(net != null && net.getIsVectorElement()){//the whole vector is declared once
+					signals.addSignal(net.getVectorName(), this.getVhdlSignalDeclaration(k), this.getReference());
+				}else{
+					signals.addSignal(this.getVhdlPinHDLsigName(k), this.getVhdlSignalDeclaration(k), this.getReference());
+				}//end if
+			}//end if
+		}//end for (k)
+	}//end addVhdlSignals()
+	
+	/**
+	 * Create the signal definition of a pin
+	 * @param k index of the pin
+	 * @return
+	 * @throws WarningException
+	 */
+	private String getVhdlSignalDeclaration(int k) throws WarningException{
+		Pin pin = this.getVhdlPinData(k);
+		String datatype = this.getVhdlPinDatatype(k);
+		VhdlNet net = this.getVhdlPinNet(k);
+		String temp;
+		int size = 0;
+		
+		if(net != null && net.getIsVectorElement()){//net is an element of a for-generate vector
+			temp = VhdlKeywords.getKeyword(VhdlKeywords.KEY_SIGNAL_ID, this.upperCase) + " " + net.getVectorName() + " : ";
+			size = net.getVectorSize() - 1;
+			return temp + VhdlKeywords.getDataType(datatype, upperCase, true, "VhdlComponent::")  + "(" + size + " " +  VhdlKeywords.getKeyword(VhdlKeywords.KEY_DOWNTO_ID, this.upperCase) + " 0) := (" + VhdlKeywords.getKeyword(VhdlKeywords.KEY_OTHERS_ID, this.upperCase) + " => '0');";
+		}//end if
+		
+		temp = VhdlKeywords.getKeyword(VhdlKeywords.KEY_SIGNAL_ID, this.upperCase) + " " + this.getVhdlPinHDLsigName(k) + " : ";
+		if(pin.getIsVector()){
+			try {
+				size = Integer.parseInt(pin.getSize()); 
+				size--;
+				temp = temp + VhdlKeywords.getDataType(datatype, upperCase, true, "VhdlComponent::")  + "(" + size + " " +  VhdlKeywords.getKeyword(VhdlKeywords.KEY_DOWNTO_ID, this.upperCase) + " 0) := (" + VhdlKeywords.getKeyword(VhdlKeywords.KEY_OTHERS_ID, this.upperCase) + " => '0');";
+			} catch (NumberFormatException e) {
+				temp = temp + VhdlKeywords.getDataType(datatype, upperCase, true, "VhdlComponent::")  + "(" + this.getReference() + "_" + pin.getSize() + " " +  VhdlKeywords.getKeyword(VhdlKeywords.KEY_DOWNTO_ID, this.upperCase) + " 0) := (" + VhdlKeywords.getKeyword(VhdlKeywords.KEY_OTHERS_ID, this.upperCase) + " => '0');";
+			}//en try
+			
+		}else{
+			temp = temp +VhdlKeywords.getDataType(datatype, upperCase, false, "VhdlComponent::")  + " := '0';";		
+		}//end if
+		
+		return temp;
+	}//end getVhdlSignalDeclaration()
+	
 	/*//////////////////////////////////////////////////////////////////////////////////////////////////////
 	 * Pin parameter methods
 	 *//////////////////////////////////////////////////////////////////////////////////////////////////////
-	public ArrayList<VhdlPin> getVhdlPins() {return this.vhdlPins;}
-	public int getVhdlPinCount() {return this.vhdlPins.size();}
+	public ArrayList<VhdlPin> getVhdlPins() {
+		this.createVhdlPins();
+		return this.vhdlPins;
+	}//end getVhdlPins()
+	
+	public int getVhdlPinCount() {
+		if(this.pinTemplates != null) return this.pinTemplates.length;
+		return this.vhdlPins.size();
+	}//end getVhdlPinCount()
+	
+	/**
+	 * Use the pins of a part for this component without copying them. The pins are shared by all components of
+	 * the same part and must not be changed. VhdlPin objects are only created when getVhdlPins() is called, use 
+	 * getVhdlPinData() and setVhdlPinNet() to access the pins without creating them.
+	 * @param templates pins of the part
+	 * @param datatype data type of the pins
+	 */
+	public void setVhdlPinTemplates(Pin[] templates, String datatype){
+		if(this.pinTemplates != null || this.vhdlPins.size() > 0){//component has pins already, add new pins directly
+			for(int i = 0; i < templates.length; i++){
+				this.addVhdlPin(new VhdlPin(templates[i], datatype, ""));
+			}//end for(i)
+			return;
+		}//end if
+		
+		this.pinTemplates = templates;
+		this.pinDatatype = datatype;
+		this.pinNets = new VhdlNet[templates.length];
+		this.pinSignals = new boolean[templates.length];
+	}//end setVhdlPinTemplates()
+	
+	/**
+	 * Get number, name, type and size of a pin without creating the VhdlPin objects of the component
+	 * @param index index of the pin
+	 * @return
+	 */
+	public Pin getVhdlPinData(int index){
+		if(this.pinTemplates != null) return this.pinTemplates[index];
+		return this.vhdlPins.get(index);
+	}//end getVhdlPinData()
+	
+	/**
+	 * Get the signal name of a pin without creating the VhdlPin objects of the component
+	 * @param index index of the pin
+	 * @return
+	 */
+	public String getVhdlPinHDLsigName(int index){
+		if(this.pinTemplates != null) return this.pinNets[index] != null ? this.pinNets[index].getName() : "";
+		return this.vhdlPins.get(index).getHDLsigName();
+	}//end getVhdlPinHDLsigName()
+	
+	/**
+	 * Get the net of a pin without creating the VhdlPin objects of the component
+	 * @param index index of the pin
+	 * @return the net or null if the pin is not connected
+	 */
+	public VhdlNet getVhdlPinNet(int index){
+		if(this.pinTemplates != null) return this.pinNets[index];
+		return this.vhdlPins.get(index).getNet();
+	}//end getVhdlPinNet()
+	
+	/**
+	 * Get the data type of a pin without creating the VhdlPin objects of the component
+	 * @param index index of the pin
+	 * @return
+	 */
+	public String getVhdlPinDatatype(int index){
+		if(this.pinTemplates != null) return this.pinDatatype;
+		return this.vhdlPins.get(index).getDatatype();
+	}//end getVhdlPinDatatype()
+	
+	/**
+	 * Returns true if the pin needs a signal declaration, without creating the VhdlPin objects of the component
+	 * @param index index of the pin
+	 * @return see VhdlPin.getIsSignal()
+	 */
+	public boolean getVhdlPinIsSignal(int index){
+		if(this.pinTemplates != null) return this.pinSignals[index] && !(this.pinNets[index] != null && this.pinNets[index].getIsTopLevel());
+		return this.vhdlPins.get(index).getIsSignal();
+	}//end getVhdlPinIsSignal()
+	
+	/**
+	 * Connect a pin to a net without creating the VhdlPin objects of the component
+	 * @param index index of the pin
+	 * @param net
+	 * @param isSignal see VhdlPin.setIsSignal()
+	 */
+	public void setVhdlPinNet(int index, VhdlNet net, boolean isSignal){
+		if(this.pinTemplates != null){
+			this.pinNets[index] = net;
+			this.pinSignals[index] = isSignal;
+		}else{
+			this.vhdlPins.get(index).setNet(net);
+			this.vhdlPins.get(index).setIsSignal(isSignal);
+		}//end if
+	}//end setVhdlPinNet()
+	
+	/**
+	 * Create the VhdlPin objects out of the shared pins of the part
+	 */
+	private void createVhdlPins(){
+		if(this.pinTemplates == null) return;
+		
+		VhdlPin pin;
+		for(int i = 0; i < this.pinTemplates.length; i++){
+			pin = new VhdlPin(this.pinTemplates[i], this.pinDatatype, "");
+			if(this.pinNets[i] != null) pin.setNet(this.pinNets[i]);
+			if(this.pinSignals[i]) pin.setIsSignal(true);
+			this.vhdlPins.add(pin);
+		}//end for(i)
+		
+		this.pinTemplates = null;
+		this.pinNets = null;
+		this.pinSignals = null;
+	}//end createVhdlPins()
 	
 	/**
 	 * This method returns all ids from all pins that are defined as top level pins. All those pins must be 
@@ -279,9 +448,10 @@ public class VhdlComponent extends Component {
 	 */
 	public ArrayList<Integer> getVhdlToplevelPinIds(){
 		ArrayList<Integer> temp =  new ArrayList<Integer>();
+		if(this.pinTemplates != null) return temp;//the shared pins of a part are never top level pins
 		
 		for(int i = 0; i < this.getVhdlPinCount(); i++){
-			if(this.vhdlPins.get(i).getIsTopLevel()){
+			if(this.getVhdlPins().get(i).getIsTopLevel()){
 				temp.add(i);
 			}//end if
 		}//end for(i)
@@ -295,9 +465,10 @@ public class VhdlComponent extends Component {
 	 */
 	public ArrayList<VhdlPin> getVhdlToplevelPins(){
 		ArrayList<VhdlPin> temp =  new ArrayList<VhdlPin>();
+		if(this.pinTemplates != null) return temp;//the shared pins of a part are never top level pins
 		
 		for(int i = 0; i < this.getVhdlPinCount(); i++){
-			if(this.vhdlPins.get(i).getIsTopLevel()){
+			if(this.getVhdlPins().get(i).getIsTopLevel()){
 				temp.add(this.vhdlPins.get(i));
 			}//end if
 		}//end for(i)
@@ -309,6 +480,10 @@ public class VhdlComponent extends Component {
 	 * Disable all pins from the components signal list by setting all pin isSignal attributes to false;
 	 */
 	public void clearAllSignals(){
+		if(this.pinTemplates != null){
+			Arrays.fill(this.pinSignals, false);
+			return;
+		}//end if
 		for(int i = 0; i < this.getVhdlPins().size(); i++){
 			this.vhdlPins.get(i).setIsSignal(false);
 		}//end for(i)
@@ -321,6 +496,7 @@ public class VhdlComponent extends Component {
 	 */
 	public void addVhdlPin(ArrayList<VhdlPin> vhdlPin) {
 		this.vhdlPins = new ArrayList<VhdlPin>();
+		this.pinTemplates = null;
 		//Make sure that all pins become a unique id 
 		for(int i = 0; i < vhdlPin.size(); i++){
 			this.vhdlPins.add(new VhdlPin(vhdlPin.get(i)));
@@ -332,6 +508,7 @@ public class VhdlComponent extends Component {
 	 * @param vhdlPin
 	 */
 	public void addVhdlPin(VhdlPin vhdlPin) {
+		this.createVhdlPins();
 		this.vhdlPins.add(vhdlPin);
 	}//end addVhdlPin()
 	
@@ -344,7 +521,7 @@ public class VhdlComponent extends Component {
 	public ArrayList<Integer> getVhdlsignalPinIDs(){
 		ArrayList<Integer> temp = new ArrayList<Integer>();
 		for(int i = 0; i < this.getVhdlPinCount(); i++){
-			if(this.vhdlPins.get(i).getIsSignal()){
+			if(this.getVhdlPinIsSignal(i)){
 				temp.add(i);
 			}//end if			
 		}//end for(i)
@@ -375,4 +552,33 @@ public class VhdlComponent extends Component {
 		else {return false;}
 	}//end hasVhdlGenerics()
 	
+	/*//////////////////////////////////////////////////////////////////////////////////////////////////////
+	 * Content hash
+	 *//////////////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Hash of everything the VHDL code of the component depends on: value, reference, generics and number, name, 
+	 * type, size, data type and signal of every pin. Components with the same content hash create the same code.
+	 * @return SHA-256 hash of the content as hex string
+	 * @see VhdlRenderCache
+	 */
+	public String getContentHash(){
+		StringBuilder content = new StringBuilder(64 + 32 * this.getVhdlPinCount());
+		content.append(this.getClass().getName()).append('\0').append(this.getReference()).append('\0').append(this.getValue()).append('\0')
+			.append(this.upperCase).append('\0').append(this.isTopLevel).append('\0').append(this.isInlineComponent).append('\0').append(this.pkgSuffix).append('\n');
+		
+		for(int i = 0; i < this.getVhdlGenericsCount(); i++){
+			VhdlGeneric generic = this.vhdlGenerics.get(i);
+			content.append("g\0").append(generic.getName()).append('\0').append(generic.getValue()).append('\0').append(generic.getDatatype())
+				.append('\0').append(generic.getSize()).append('\0').append(generic.isActive()).append('\n');
+		}//end for(i)
+		
+		for(int i = 0; i < this.getVhdlPinCount(); i++){
+			Pin pin = this.getVhdlPinData(i);
+			content.append("p\0").append(pin.getNo()).append('\0').append(pin.getName()).append('\0').append(pin.getType()).append('\0').append(pin.getSize())
+				.append('\0').append(this.getVhdlPinDatatype(i)).append('\0').append(this.getVhdlPinHDLsigName(i)).append('\0').append(this.getVhdlPinIsSignal(i)).append('\n');
+		}//end for(i)
+		
+		return VhdlRenderCache.hash(content);
+	}//end getContentHash()
+	
 }//end class
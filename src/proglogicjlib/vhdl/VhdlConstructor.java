@@ -34,6 +34,7 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 package com.proglogicjlib.vhdl;
 
+import java.io.IOException;
 import java.util.ArrayList;
 
 import com.proglogicjlib.data.Pin;
@@ -207,11 +208,89 @@ public class VhdlConstructor {
 		retVal.add(tempData);
 		
 		//align code properly
-		VHDLmanipulation mani = new VHDLmanipulation();
-		retVal = mani.lineUpKeyword(retVal, "=>", "", false, 0);
+		retVal = VhdlAlignment.align(retVal, "=>");
 		
 		return retVal;	
 	}
+	
+	/**
+	 * Write the component instantiation code straight to an output. The code is the same as the code of 
+	 * createComponentInstantiation() but no VhdlData objects are created. Every line starts with leadingWhiteSpaces
+	 * white spaces and ends with a line break.
+	 * @param component
+	 * @param upperCase True = print VHDL keywords in upper case letter, false print them in lower case
+	 * @param showUnusedInputs true = print unused inputs as comment
+	 * @param out
+	 * @param leadingWhiteSpaces
+	 * @throws IOException
+	 */
+	public static void writeComponentInstantiation(VhdlComponent component, boolean upperCase, boolean showUnusedInputs, Appendable out, int leadingWhiteSpaces) throws IOException{
+		VhdlAlignment lines = new VhdlAlignment("=>");
+		int lastCodePin = -1;
+		
+		//find the last pin with code, all ',' will be removed from its line
+		for(int i = 0; i < component.getVhdlPinCount(); i++){
+			String sigName = component.getVhdlPinHDLsigName(i);
+			if((sigName != null && !sigName.equals("")) || component.getVhdlPinData(i).getType() == Pin.TYPE_OUT){
+				lastCodePin = i;
+			}//end if
+		}//end for
+		
+		//reference and name of component instantiation
+		lines.append(component.getReference()).append(" : ").append(component.getValue());
+		lines.endLine();
+		
+		//generic map
+		if(component.hasVhdlGenerics()){
+			lines.appendWhiteSpace(VhdlKeywords.LEVEL_1).append(VhdlKeywords.getKeyword(VhdlKeywords.KEY_GENERIC_ID, upperCase)).append(" ").append(VhdlKeywords.getKeyword(VhdlKeywords.KEY_MAP_ID, upperCase)).append(" (");
+			lines.endLine();
+			
+			for(int i = 0; i < component.getVhdlGenericsCount(); i++){
+				String name = component.getVhdlGenerics().get(i).getName();
+				lines.appendWhiteSpace(VhdlKeywords.LEVEL_2).append(name).append(" ");
+				lines.markColumn(0);
+				lines.append("=> ").append(component.getReference()).append("_").append(name);
+				if(i < component.getVhdlGenericsCount()-1) lines.append(",");
+				lines.endLine();
+			}//end for (i)
+			
+			lines.appendWhiteSpace(VhdlKeywords.LEVEL_1).append(")");
+			lines.endLine();
+		}//end if
+		
+		//port map
+		lines.appendWhiteSpace(VhdlKeywords.LEVEL_1).append(VhdlKeywords.getKeyword(VhdlKeywords.KEY_PORTMAP_ID, upperCase)).append("( ");
+		lines.endLine();
+		
+		for(int i = 0; i < component.getVhdlPinCount(); i++){
+			String sigName = component.getVhdlPinHDLsigName(i);
+			Pin pin = component.getVhdlPinData(i);
+			
+			if(sigName != null && !sigName.equals("")){//current pin is connected to a signal
+				lines.appendWhiteSpace(VhdlKeywords.LEVEL_2).append(pin.getName()).append(" ");
+				lines.markColumn(0);
+				lines.append("=> ").append(sigName).append(",");
+			}else if(pin.getType() == Pin.TYPE_OUT){//use open keyword
+				lines.appendWhiteSpace(VhdlKeywords.LEVEL_2).append(pin.getName()).append(" ");
+				lines.markColumn(0);
+				lines.append("=> ").append(VhdlKeywords.getKeyword(VhdlKeywords.KEY_OPEN_ID, upperCase)).append(",");
+			}else if(showUnusedInputs){//unused input, only a comment that is not aligned
+				lines.appendWhiteSpace(VhdlKeywords.LEVEL_2).append("--").append(pin.getName()).append(" => ,");
+				lines.endLine();
+				continue;
+			}else{
+				continue;
+			}//end if
+			
+			if(i == lastCodePin) lines.removeFromLine(',');//remove the ',' from the last signal
+			lines.endLine();
+		}//end for
+		
+		lines.appendWhiteSpace(VhdlKeywords.LEVEL_1).append(");");
+		lines.endLine();
+		
+		lines.write(out, leadingWhiteSpaces);
+	}//end writeComponentInstantiation()
 
 
 	/*--------------------------------------------------------------------------------------------------------------------
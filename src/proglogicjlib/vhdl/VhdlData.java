@@ -117,16 +117,20 @@ public class VhdlData {
 	
 	@Override
 	public boolean equals(Object o){
-		if(o == this)return false;
+		if(o == this)return true;
 		
 		if(!(o instanceof VhdlData))return false;
 		
 		VhdlData data = (VhdlData)o;
 		return this.getCode().equals(data.getCode());
-		
-		
-		
-		
 	}//end equals()
 	
+	/**
+	 * Hash code of the code line, objects with the same code are equal
+	 */
+	@Override
+	public int hashCode(){
+		return this.getCode().hashCode();
+	}//end hashCode()
+	
 }//end class
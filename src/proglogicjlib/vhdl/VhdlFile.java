@@ -34,27 +34,33 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 package com.proglogicjlib.vhdl;
 
+import java.awt.GraphicsEnvironment;
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.JOptionPane;
 
+import com.proglogicjlib.misc.ConversionMonitor;
+import com.proglogicjlib.misc.InfoAndMessages;
 import com.proglogicjlib.misc.WarningException;
 
 
 public class VhdlFile {
 
-	public static String VHDL_HEADER_COPYRIGHT = "-----------------------------------------------------------------------------------------\n"
+	public static final String VHDL_HEADER_COPYRIGHT = "-----------------------------------------------------------------------------------------\n"
 												+ "--Information and Copyright\n"
 												+ "-----------------------------------------------------------------------------------------\n"
 												+ "-- License agreement: (BSD 3 License)\n"
@@ -87,14 +93,55 @@ public class VhdlFile {
 												+ "-- DAMAGE.\n"
 												+ " \n";
 
-	public static String VHDL_TEMPLATE_PART_A;
-	private static String VHDL_TEMPLATE_PART_A_PATH = "templates/vhdl_template_part_a.txt";
+	/**Template files that have been read, the files are only read once per JVM*/
+	private static final HashMap<String, String> templateTexts = new HashMap<String, String>();
+	
+	private static final String VHDL_TEMPLATE_PART_A_PATH = "templates/vhdl_template_part_a.txt";
+	public static final String VHDL_TEMPLATE_PART_A = getTemplateText(VHDL_TEMPLATE_PART_A_PATH);
 
-	public static String VHDL_TEMPLATE_PART_B;
-	private static String VHDL_TEMPLATE_PART_B_PATH = "templates/vhdl_template_part_b.txt";
+	private static final String VHDL_TEMPLATE_PART_B_PATH = "templates/vhdl_template_part_b.txt";
+	public static final String VHDL_TEMPLATE_PART_B = getTemplateText(VHDL_TEMPLATE_PART_B_PATH);
+	
+	private static final String VHDL_TEMPLATE_PART_C_PATH = "templates/vhdl_template_part_c.txt";
+	public static final String VHDL_TEMPLATE_PART_C = getTemplateText(VHDL_TEMPLATE_PART_C_PATH);
+	
+	/**Compiled top level file for lower case and upper case keywords*/
+	private static final VhdlTemplate[] fileTemplates = new VhdlTemplate[2];
+	
+	/**Nets of the last file that are declared with conflicting datatypes or widths*/
+	private ArrayList<String> signalConflicts = new ArrayList<String>();
+	
+	/**Charset of the files, true if the last file already had the same content and has not been written*/
+	private Charset charset = Charset.forName("UTF-8");
+	private boolean fileUnchanged = false;
+	
+	/**true if the last file existed with a different content and has been kept*/
+	private boolean fileKept = false;
+	public static final String FILE_KEPT_ID = "(VhdlFile:001)";
+	
+	/**Pool the component instantiations are rendered on, null = render them one after another*/
+	private ForkJoinPool renderPool = null;
 	
-	public static String VHDL_TEMPLATE_PART_C;
-	private static String VHDL_TEMPLATE_PART_C_PATH = "templates/vhdl_template_part_c.txt";
+	/**Minimal number of identical consecutive instances coded as one for-generate statement, 0 = no for-generate*/
+	private int generateMinInstances = 0;
+	
+	/**What happens with an existing file of different content, see setOverwritePolicy()*/
+	public static final int OVERWRITE_ASK = 0;
+	public static final int OVERWRITE_ALWAYS = 1;
+	public static final int OVERWRITE_NEVER = 2;
+	private int overwritePolicy = OVERWRITE_ASK;
+	
+	/**false = never ask the user, see setShowDialogs()*/
+	private boolean showDialogs = true;
+	
+	/**Cache of rendered component instantiations, null = render all instantiations*/
+	private VhdlRenderCache renderCache = null;
+	
+	/**Progress and cancellation of the conversion, null = none*/
+	private ConversionMonitor monitor = null;
+	
+	private static final int INSTANCES_MIN_CHUNK_SIZE = 256;
+	private static final int INSTANCES_CHUNKS_PER_WORKER = 4;
 	
 	
 	
@@ -112,33 +159,490 @@ public class VhdlFile {
 	}//
 	
 	/**
-	 * Constructor for object initialization and import of template files
+	 * Constructor for object initialization. The template files are imported once when the class is loaded, 
+	 * all state of a conversion is kept in the object, so that several objects can write files at the same time.
 	 */
 	public VhdlFile(){
-		//initialize arrays
-		VhdlFile.VHDL_TEMPLATE_PART_A = readFileConvertToString(new File(VHDL_TEMPLATE_PART_A_PATH));
-		VhdlFile.VHDL_TEMPLATE_PART_B = readFileConvertToString(new File(VHDL_TEMPLATE_PART_B_PATH));
-		VhdlFile.VHDL_TEMPLATE_PART_C = readFileConvertToString(new File(VHDL_TEMPLATE_PART_C_PATH));
-
 	}
 	
+	/**
+	 * Get the content of a template file. The file is searched relative to the working directory first and 
+	 * on the classpath second. Every template is only read once.
+	 * @param path
+	 * @return content of the template, "" if it does not exist
+	 */
+	public static String getTemplateText(String path){
+		synchronized(templateTexts){
+			String text = templateTexts.get(path);
+			if(text != null) return text;
+			
+			File file = new File(path);
+			InputStream resource = VhdlFile.class.getClassLoader().getResourceAsStream(path);
+			if(!file.exists() && resource != null){
+				text = readStreamConvertToString(resource);
+			}else{
+				if(resource != null) readStreamConvertToString(resource);//only close it
+				text = readFileConvertToString(file);
+			}//end if
+			
+			templateTexts.put(path, text);
+			return text;
+		}//end synchronized
+	}//end getTemplateText()
+	
+	/**
+	 * Hash of the copyright header and of all template files the top level file is created of
+	 * @return SHA-256 hash as hex string
+	 */
+	public static String getTemplatesHash(){
+		return VhdlRenderCache.hash(VHDL_HEADER_COPYRIGHT + '\0' + VHDL_TEMPLATE_PART_A + '\0' + VHDL_TEMPLATE_PART_B + '\0' + VHDL_TEMPLATE_PART_C);
+	}//end getTemplatesHash()
+	
+	/**
+	 * Get the compiled top level file. It is compiled once for each case of the keywords.
+	 * Placeholders: entityName, pkgSuffix, component, libraries, entity, signals, instances
+	 * @param upperCase true = all vhdl keywords upper case
+	 * @return
+	 */
+	private static synchronized VhdlTemplate getFileTemplate(boolean upperCase){
+		int index = upperCase ? 1 : 0;
+		if(fileTemplates[index] != null) return fileTemplates[index];
+		
+		StringBuilder template = new StringBuilder();
+		template.append(VhdlTemplate.escape(String.valueOf(VhdlFile.VHDL_HEADER_COPYRIGHT)));
+		template.append(VhdlTemplate.escape(String.valueOf(VhdlFile.VHDL_TEMPLATE_PART_A)));
+		
+		//package
+		template.append(VhdlKeywords.getKeyword(VhdlKeywords.KEY_PACKAGEC_ID, upperCase)).append(" ${entityName}${pkgSuffix} ").append(VhdlKeywords.getKeyword(VhdlKeywords.KEY_IS_ID, upperCase)).append("\n");
+		template.append("${component}");
+		template.append(VhdlKeywords.getKeyword(VhdlKeywords.KEY_END_ID, upperCase)).append(" ").append(VhdlKeywords.getKeyword(VhdlKeywords.KEY_PACKAGEC_ID, upperCase)).append(";\n");
+		
+		//libraries
+		template.append(VhdlTemplate.escape(VhdlFile.getCommentSection("Libraries", VhdlKeywords.LEVEL_1)));
+		template.append(VhdlTemplate.escape(String.valueOf(VhdlFile.VHDL_TEMPLATE_PART_B))).append("\n");
+		template.append(VHDLmanipulation.whiteSpaceCreator(VhdlKeywords.LEVEL_1)).append(VhdlKeywords.getKeyword(VhdlKeywords.KEY_LIBRARY_ID, upperCase)).append(" work;\n");
+		template.append("${libraries}");
+		
+		//entity
+		template.append(VhdlTemplate.escape(VhdlFile.getCommentSection("Entity", VhdlKeywords.LEVEL_1)));
+		template.append("${entity}");
+		
+		//architecture
+		template.append("\n").append(VhdlTemplate.escape(String.valueOf(VhdlFile.VHDL_TEMPLATE_PART_C)));
+		template.append(VHDLmanipulation.whiteSpaceCreator(VhdlKeywords.LEVEL_1)).append(VhdlKeywords.getKeyword(VhdlKeywords.KEY_ARCHITECTURE_ID, upperCase))
+				.append(" arch ").append(VhdlKeywords.getKeyword(VhdlKeywords.KEY_OF_ID, upperCase)).append(" ${entityName} ").append(VhdlKeywords.getKeyword(VhdlKeywords.KEY_IS_ID, upperCase));
+		template.append("\n\n");
+		template.append("${signals}");
+		template.append(VhdlKeywords.getKeyword(VhdlKeywords.KEY_BEGIN_ID, upperCase)).append("\n");
+		template.append("${instances}");
+		template.append("\n");
+		template.append(VhdlKeywords.getKeyword(VhdlKeywords.KEY_END_ID, upperCase)).append(" arch;\n");
+		
+		fileTemplates[index] = VhdlTemplate.compile(template.toString());
+		return fileTemplates[index];
+	}//end getFileTemplate()
+	
 
 	
 	/**
-	 * Convert data into a top level vhdl file. 
+	 * Convert data into a top level vhdl file. The file is written to a temporary file first and moved into place 
+	 * afterwards. An existing file with the same content is not touched, an existing file with a different content
+	 * is only replaced after a confirmation. Without a display or dialogs it is kept and a WarningException is thrown.
 	 * @param entity     Data of entity
 	 * @param entityName Name of entity
 	 * @param path Path of file were result shall be saved in
 	 * @param upperCase true = all vhdl keywords printed upper case
 	 * @param components  components that are instantiated in the vhdl file, if not existing use null. Set to null when to print component vhdl files and not the top level file
 	 * @param showUnusedInputs
-	 * @throws WarningException 
+	 * @return absolute path of the file, null if the file has not been saved
+	 * @throws WarningException also if an existing file has been kept because nobody could confirm to replace it
 	 */
 	public String componentToVhdlFile( String entityName, String pkgSuffix,  String path, boolean upperCase, ArrayList<VhdlComponent> vhdlComponents, boolean showUnusedInputs) throws WarningException{
 		
 		ArrayList<VhdlData> entity = VHDLmanipulation.getTopLevelEntity(vhdlComponents, entityName, upperCase, false, 0);
 		ArrayList<VhdlData> component = VHDLmanipulation.getTopLevelEntity(vhdlComponents, entityName, upperCase, true, 0);
+		ArrayList<VhdlData> resultLibs = VhdlFile.getLibraries(vhdlComponents);
+		VhdlGenerate generate = this.generateMinInstances > 0 ? new VhdlGenerate(vhdlComponents, this.generateMinInstances) : null;
+		VhdlSignalTable signals;
+		try{
+			signals = VhdlFile.getSignals(vhdlComponents);
+		}catch(WarningException e){
+			if(generate != null) generate.clear();
+			throw e;
+		}//end catch
+		this.signalConflicts = signals.getConflicts();
 		
+		File file = new File(path);
+		
+		if(!file.isDirectory()){
+			file.mkdirs();
+		}
+		
+		file = new File(path+"/"+  entityName+".vhd");
+		VhdlOutputFile output = null;
+		this.fileUnchanged = false;
+		this.fileKept = false;
+		try {
+			output = new VhdlOutputFile(file, this.charset);
+			output.setMonitor(this.monitor);
+			try{
+				VhdlFile.writeVhdlFile(output, entityName, pkgSuffix, upperCase, vhdlComponents, showUnusedInputs, entity, component, resultLibs, signals, generate, this.renderCache, this.renderPool, this.monitor);
+			}finally{//the nets get their names back
+				if(generate != null) generate.clear();
+			}//end finally
+			output.close();
+			
+			if(output.isUnchanged()){//keep the existing file and its time stamp
+				output.discard();
+				this.fileUnchanged = true;
+				return file.getAbsolutePath();
+			}//end if
+			
+			//Check if file exists, ask only if there is somebody to answer
+			if(file.exists() && this.overwritePolicy != OVERWRITE_ALWAYS){
+				boolean ask = this.overwritePolicy == OVERWRITE_ASK && this.canAsk();
+				if(!ask || !VhdlFile.confirmOverwrite(entityName)){
+					output.discard();
+					this.fileKept = true;
+					if(this.overwritePolicy == OVERWRITE_ASK && !ask){//nobody has decided to keep the outdated file
+						InfoAndMessages.showWarning(FILE_KEPT_ID + " File " + file.getAbsolutePath() + " already exists with a different content "
+								+ "and has been kept, nobody could confirm to replace it. Select OVERWRITE_ALWAYS or OVERWRITE_NEVER.");
+					}//end if
+					return null;
+				}//end if
+			}//end if
+			
+			/*FILE END*/
+			output.commit();
+			return file.getAbsolutePath();
+		} catch (IOException e) {
+			e.printStackTrace();
+			if(output != null) output.discard();
+		} catch (RuntimeException e) {//do not leave the temporary file behind
+			if(output != null) output.discard();
+			throw e;
+		}
+		return null;
+	}//end createVhdlFile(
+	
+	/**
+	 * @return true if the user can be asked in a dialog
+	 */
+	private boolean canAsk(){
+		return this.showDialogs && InfoAndMessages.getShowDialogs() && !GraphicsEnvironment.isHeadless();
+	}//end canAsk()
+	
+	/**
+	 * Ask the user if an existing file shall be replaced. The Swing classes are only loaded by this method.
+	 * @return true if the file shall be replaced
+	 */
+	private static boolean confirmOverwrite(String entityName){
+		int type = JOptionPane.showConfirmDialog(null, "File \"" + entityName+".vhd" + "\" already exists. Do you want to overwrite the file?");
+		if(type != JOptionPane.YES_OPTION){//close program
+			JOptionPane.showMessageDialog(null, "File has not been saved!");
+			return false;
+		}//end if NO selection
+		return true;
+	}//end confirmOverwrite()
+	
+	/**
+	 * Select what componentToVhdlFile() does with an existing file of different content. A file of the same content is never written.
+	 * @param overwritePolicy OVERWRITE_ASK = ask the user, without a display or dialogs the file is kept and a WarningException is thrown (default), 
+	 * OVERWRITE_ALWAYS = replace the file, OVERWRITE_NEVER = keep the file
+	 */
+	public void setOverwritePolicy(int overwritePolicy){this.overwritePolicy = overwritePolicy;}
+	public int getOverwritePolicy(){return this.overwritePolicy;}
+	
+	/**
+	 * Select if componentToVhdlFile() may ask the user in a dialog, switch it off for files written on pool threads
+	 * @param showDialogs true = ask if InfoAndMessages allows dialogs (default), false = never ask
+	 */
+	public void setShowDialogs(boolean showDialogs){this.showDialogs = showDialogs;}
+	public boolean getShowDialogs(){return this.showDialogs;}
+	
+	/**
+	 * Returns one message per net of the last file created with componentToVhdlFile() that has been declared with conflicting 
+	 * datatypes or widths. All declarations of such a net are written to the file.
+	 * @return
+	 */
+	public ArrayList<String> getSignalConflicts(){return this.signalConflicts;}
+	
+	/**
+	 * Set the charset of the files written by componentToVhdlFile(), default is UTF-8
+	 * @param charset
+	 */
+	public void setCharset(Charset charset){this.charset = charset;}
+	public Charset getCharset(){return this.charset;}
+	
+	/**
+	 * @return true if the file of the last call of componentToVhdlFile() already existed with the same content. 
+	 * The file has not been written in this case, its time stamp has not been changed.
+	 */
+	public boolean getFileUnchanged(){return this.fileUnchanged;}
+	
+	/**
+	 * @return true if the file of the last call of componentToVhdlFile() already existed with a different content and 
+	 * has been kept, because of OVERWRITE_NEVER, the answer of the user or because nobody could be asked
+	 */
+	public boolean getFileKept(){return this.fileKept;}
+	
+	/**
+	 * Render the component instantiations of componentToVhdlFile() concurrently. The instantiations are written
+	 * in the order of the components, the file is the same as without a pool.
+	 * @param renderPool pool to render on, null = render the instantiations one after another (default)
+	 */
+	public void setRenderPool(ForkJoinPool renderPool){this.renderPool = renderPool;}
+	public ForkJoinPool getRenderPool(){return this.renderPool;}
+	
+	/**
+	 * Code runs of consecutive identical component instances as one for-generate statement in componentToVhdlFile(),
+	 * see VhdlGenerate. The nets of the instances are combined to vector signals.
+	 * @param generateMinInstances minimal number of instances of a run, 0 = code every instance on its own (default)
+	 */
+	public void setGenerateMinInstances(int generateMinInstances){this.generateMinInstances = generateMinInstances;}
+	public int getGenerateMinInstances(){return this.generateMinInstances;}
+	
+	/**
+	 * Take the component instantiations of componentToVhdlFile() out of a cache, only instantiations that are not in the
+	 * cache are rendered and added to it. The file is the same as without a cache.
+	 * @param renderCache cache by content hash of the components, null = render all instantiations (default)
+	 */
+	public void setRenderCache(VhdlRenderCache renderCache){this.renderCache = renderCache;}
+	public VhdlRenderCache getRenderCache(){return this.renderCache;}
+	
+	/**
+	 * Report the rendered instances and the written bytes to a monitor and stop writing when it is cancelled. 
+	 * A cancelled file is discarded and componentToVhdlFile() throws a CancellationException.
+	 * @param monitor monitor of the conversion, null = none (default)
+	 */
+	public void setMonitor(ConversionMonitor monitor){this.monitor = monitor;}
+	public ConversionMonitor getMonitor(){return this.monitor;}
+	
+	/**
+	 * Write the top level vhdl file straight to an output. The component instantiations are written line by line 
+	 * without collecting their code in memory first.
+	 * @param output
+	 * @param entityName Name of entity
+	 * @param pkgSuffix
+	 * @param upperCase true = all vhdl keywords printed upper case
+	 * @param vhdlComponents components that are instantiated in the vhdl file
+	 * @param showUnusedInputs
+	 * @return nets that are declared with conflicting datatypes or widths, see VhdlSignalTable.getConflicts()
+	 * @throws IOException
+	 * @throws WarningException
+	 */
+	public static ArrayList<String> writeVhdlFile(Appendable output, String entityName, String pkgSuffix, boolean upperCase, ArrayList<VhdlComponent> vhdlComponents, boolean showUnusedInputs) throws IOException, WarningException{
+		return VhdlFile.writeVhdlFile(output, entityName, pkgSuffix, upperCase, vhdlComponents, showUnusedInputs, null);
+	}//end writeVhdlFile()
+	
+	/**
+	 * Write the top level vhdl file straight to an output, the component instantiations are rendered on a pool
+	 * @param pool pool to render the component instantiations on, null = render them one after another
+	 * @see #writeVhdlFile(Appendable, String, String, boolean, ArrayList, boolean)
+	 */
+	public static ArrayList<String> writeVhdlFile(Appendable output, String entityName, String pkgSuffix, boolean upperCase, ArrayList<VhdlComponent> vhdlComponents, boolean showUnusedInputs, 
+			ForkJoinPool pool) throws IOException, WarningException{
+		ArrayList<VhdlData> entity = VHDLmanipulation.getTopLevelEntity(vhdlComponents, entityName, upperCase, false, 0);
+		ArrayList<VhdlData> component = VHDLmanipulation.getTopLevelEntity(vhdlComponents, entityName, upperCase, true, 0);
+		VhdlSignalTable signals = VhdlFile.getSignals(vhdlComponents);
+		
+		VhdlFile.writeVhdlFile(output, entityName, pkgSuffix, upperCase, vhdlComponents, showUnusedInputs, entity, component, 
+				VhdlFile.getLibraries(vhdlComponents), signals, null, null, pool, null);
+		return signals.getConflicts();
+	}//end writeVhdlFile()
+	
+	/**
+	 * Write all parts of the top level vhdl file by filling in the compiled file template
+	 */
+	private static void writeVhdlFile(Appendable output, final String entityName, final String pkgSuffix, final boolean upperCase, final ArrayList<VhdlComponent> vhdlComponents, final boolean showUnusedInputs,
+			final ArrayList<VhdlData> entity, final ArrayList<VhdlData> component, final ArrayList<VhdlData> resultLibs, final VhdlSignalTable signals, final VhdlGenerate generate, final VhdlRenderCache cache, final ForkJoinPool pool, final ConversionMonitor monitor) throws IOException{
+		
+		VhdlFile.getFileTemplate(upperCase).render(output, new VhdlTemplate.Filler() {
+			@Override
+			public void fill(String placeholder, Appendable output) throws IOException {
+				if(placeholder.equals("entityName")){
+					output.append(entityName);
+					
+				}else if(placeholder.equals("pkgSuffix")){
+					output.append(pkgSuffix.trim());
+					
+				}else if(placeholder.equals("component")){//component declaration of the package
+					for(int i = 0; i < component.size(); i++){
+						VHDLmanipulation.appendWhiteSpace(output, VhdlKeywords.LEVEL_2);
+						output.append(component.get(i).getCode()).append('\n');	
+					}//end for
+					
+				}else if(placeholder.equals("libraries")){
+					if(vhdlComponents != null){
+						for(int i = 0; i < resultLibs.size(); i++){
+							VHDLmanipulation.appendWhiteSpace(output, VhdlKeywords.LEVEL_1);
+							output.append(VhdlKeywords.getKeyword(VhdlKeywords.KEY_USE_ID, upperCase)).append(" work.").append(resultLibs.get(i).getCode())
+									.append(".").append(VhdlKeywords.getKeyword(VhdlKeywords.KEY_ALL_ID, upperCase)).append(";\n");
+						}//end for(i)
+						output.append("\n");
+					}//end if component != null
+					
+				}else if(placeholder.equals("entity")){
+					for(int i = 0; i < entity.size(); i++){
+						output.append(entity.get(i).getCode()).append('\n');	
+					}//end for
+					
+				}else if(placeholder.equals("signals")){
+					if(vhdlComponents != null){
+						signals.getAlignedDeclarations().write(output, VhdlKeywords.LEVEL_2);
+						output.append("\n");
+					}//end if component != null
+					
+				}else if(placeholder.equals("instances")){
+					if(vhdlComponents == null) return;
+					if(pool != null && pool.getParallelism() > 1 && vhdlComponents.size() > 2 * INSTANCES_MIN_CHUNK_SIZE){
+						VhdlFile.writeInstancesParallel(output, vhdlComponents, 0, vhdlComponents.size(), showUnusedInputs, upperCase, generate, cache, pool, monitor);
+					}else{
+						VhdlFile.writeInstances(output, vhdlComponents, 0, vhdlComponents.size(), showUnusedInputs, upperCase, generate, cache, monitor);
+					}//end if
+				}//end if
+			}//end fill()
+		});
+	}//end writeVhdlFile()
+	
+	/**
+	 * Write the component instantiations of a range of components. A for-generate statement is written completely
+	 * by the range that contains the first component of its run.
+	 * @param output
+	 * @param vhdlComponents
+	 * @param from index of the first component
+	 * @param to index after the last component
+	 * @param showUnusedInputs
+	 * @param upperCase
+	 * @param generate runs of instances coded as for-generate, null = none
+	 * @param cache cache of rendered instantiations, null = render all instantiations
+	 * @param monitor receives the number of rendered components, null = none
+	 * @throws IOException
+	 */
+	private static void writeInstances(Appendable output, ArrayList<VhdlComponent> vhdlComponents, int from, int to, boolean showUnusedInputs, boolean upperCase, 
+			VhdlGenerate generate, VhdlRenderCache cache, ConversionMonitor monitor) throws IOException{
+		for(int i = from; i < to; i++){
+			if(monitor != null && i > from && (i - from) % ConversionMonitor.PROGRESS_STEP == 0){
+				monitor.progress(ConversionMonitor.PHASE_INSTANCES_RENDERED, ConversionMonitor.PROGRESS_STEP, vhdlComponents.size());
+			}//end if
+			if(generate != null && generate.isRunMember(i)){
+				if(generate.isRunStart(i)) generate.writeRun(output, i, upperCase, showUnusedInputs, VhdlKeywords.LEVEL_2);
+			}else if(!vhdlComponents.get(i).getIsTopLevel()){//top level inputs do not have any instantiation code
+				if(cache == null){
+					VhdlFile.writeInstance(output, vhdlComponents.get(i), showUnusedInputs);
+					continue;
+				}//end if
+				
+				String key = (showUnusedInputs ? "i1" : "i0") + vhdlComponents.get(i).getContentHash();
+				String code = cache.get(key);
+				if(code == null){
+					StringBuilder rendered = new StringBuilder();
+					VhdlFile.writeInstance(rendered, vhdlComponents.get(i), showUnusedInputs);
+					code = rendered.toString();
+					cache.put(key, code);
+				}//end if
+				output.append(code);
+			}//end if is TopLevel
+		}//end for (i)
+		if(monitor != null && to > from){
+			monitor.progress(ConversionMonitor.PHASE_INSTANCES_RENDERED, (to - from - 1) % ConversionMonitor.PROGRESS_STEP + 1, vhdlComponents.size());
+		}//end if
+	}//end writeInstances()
+	
+	/**
+	 * Write the comment section and the instantiation of a component
+	 */
+	private static void writeInstance(Appendable output, VhdlComponent vhdlComponent, boolean showUnusedInputs) throws IOException{
+		output.append("\n");
+		output.append(VhdlFile.getCommentSection("Component " + vhdlComponent.getReference(), VhdlKeywords.LEVEL_2 ));
+		vhdlComponent.writeVhdlComponentInstantiation(output, showUnusedInputs, VhdlKeywords.LEVEL_2);
+	}//end writeInstance()
+	
+	/**
+	 * Render chunks of component instantiations on a pool into buffers and write the buffers in the order of the components
+	 */
+	private static void writeInstancesParallel(Appendable output, ArrayList<VhdlComponent> vhdlComponents, int from, int to, boolean showUnusedInputs, boolean upperCase, VhdlGenerate generate, 
+			VhdlRenderCache cache, ForkJoinPool pool, ConversionMonitor monitor) throws IOException{
+		ArrayList<InstanceChunkTask> chunks = new ArrayList<InstanceChunkTask>();
+		AtomicBoolean stopped = new AtomicBoolean(false);
+		int chunkSize = Math.max(INSTANCES_MIN_CHUNK_SIZE, (to - from) / (pool.getParallelism() * INSTANCES_CHUNKS_PER_WORKER));//several chunks per worker
+		
+		try{
+			for(int start = from; start < to; start += chunkSize){
+				chunks.add(new InstanceChunkTask(vhdlComponents, start, Math.min(to, start + chunkSize), showUnusedInputs, upperCase, generate, cache, monitor, stopped));
+				pool.execute(chunks.get(chunks.size()-1));
+			}//end for(start)
+			
+			for(int i = 0; i < chunks.size(); i++){
+				chunks.get(i).join();
+				if(chunks.get(i).error instanceof IOException) throw (IOException)chunks.get(i).error;
+				if(chunks.get(i).error instanceof RuntimeException) throw (RuntimeException)chunks.get(i).error;
+				if(!stopped.get()) output.append(chunks.get(i).code);//after a failure the code can be incomplete, the failed chunk is rethrown later
+				chunks.set(i, null);
+			}//end for(i)
+		}finally{
+			//after an error no chunk may still be rendering or filling the cache when the exception leaves this method
+			stopped.set(true);
+			for(int i = 0; i < chunks.size(); i++){
+				if(chunks.get(i) != null) chunks.get(i).quietlyJoin();
+			}//end for(i)
+		}//end try
+	}//end writeInstancesParallel()
+	
+	/**
+	 * Renders the component instantiations of a range of components into a buffer
+	 */
+	private static class InstanceChunkTask extends RecursiveAction{
+		private static final long serialVersionUID = 1L;
+		
+		private ArrayList<VhdlComponent> vhdlComponents;
+		private int from;
+		private int to;
+		private boolean showUnusedInputs;
+		private boolean upperCase;
+		private VhdlGenerate generate;
+		private VhdlRenderCache cache;
+		private ConversionMonitor monitor;
+		private StringBuilder code = new StringBuilder();
+		private Exception error = null;
+		/**Set when a chunk fails or the chunks are abandoned, all chunks stop at their next progress step*/
+		private AtomicBoolean stopped;
+		
+		InstanceChunkTask(ArrayList<VhdlComponent> vhdlComponents, int from, int to, boolean showUnusedInputs, boolean upperCase, VhdlGenerate generate, VhdlRenderCache cache, ConversionMonitor monitor, 
+				AtomicBoolean stopped){
+			this.vhdlComponents = vhdlComponents;
+			this.from = from;
+			this.to = to;
+			this.showUnusedInputs = showUnusedInputs;
+			this.upperCase = upperCase;
+			this.generate = generate;
+			this.cache = cache;
+			this.monitor = monitor;
+			this.stopped = stopped;
+		}//end constructor
+		
+		@Override
+		protected void compute(){
+			try{
+				for(int start = from; start < to && !stopped.get(); start += ConversionMonitor.PROGRESS_STEP){
+					writeInstances(code, vhdlComponents, start, Math.min(to, start + ConversionMonitor.PROGRESS_STEP), showUnusedInputs, upperCase, generate, cache, monitor);
+				}//end for(start)
+			}catch(IOException e){
+				error = e;
+				stopped.set(true);
+			}catch(RuntimeException e){//also the CancellationException of the monitor
+				error = e;
+				stopped.set(true);
+			}//end catch
+		}//end compute()
+	}//end class InstanceChunkTask
+	
+	/**
+	 * Get the package names of all components that are not inline code, every package is only returned once
+	 * @param vhdlComponents
+	 * @return
+	 */
+	private static ArrayList<VhdlData> getLibraries(ArrayList<VhdlComponent> vhdlComponents){
 		//Create library code  VHDL file; all VhdlComponents that are defined as non inline component must need a package declaration
         ArrayList<VhdlData> libraries = new ArrayList<VhdlData>();
         for(int i = 0; i < vhdlComponents.size(); i++){
@@ -149,166 +653,28 @@ public class VhdlFile {
         
         //remove libraries that might appear multiple times because vhdlComponents list contains multiple objects of one type
         ArrayList<VhdlData> resultLibs = new ArrayList<VhdlData>();
-        Iterator<VhdlData> iterator = libraries.iterator();
-
-        while(iterator.hasNext()){
-        	VhdlData o = (VhdlData) iterator.next();
-        	if(!resultLibs.contains(o)){resultLibs.add(o);}//end if
-        }//end while
-
+        HashSet<VhdlData> found = new HashSet<VhdlData>();
+        for(int i = 0; i < libraries.size(); i++){
+        	if(found.add(libraries.get(i))){resultLibs.add(libraries.get(i));}//end if
+        }//end for(i)
         
-        //Get all signals for VHDL file
-		 ArrayList<VhdlData> tempSignals = new ArrayList<VhdlData>();
+        return resultLibs;
+	}//end getLibraries()
+	
+	/**
+	 * Get the signal declarations of all components, every net is only declared once
+	 * @param vhdlComponents
+	 * @return
+	 * @throws WarningException
+	 */
+	private static VhdlSignalTable getSignals(ArrayList<VhdlComponent> vhdlComponents) throws WarningException{
+		VhdlSignalTable signals = new VhdlSignalTable();
 		for(int i = 0; i < vhdlComponents.size(); i++){
-			tempSignals.addAll(vhdlComponents.get(i).getVhdlSignalCode());	
+			vhdlComponents.get(i).addVhdlSignals(signals);	
 		}//end for (i)
 		
-		
-        //remove libraries that might appear multiple times because vhdlComponents list contains multiple objects of one type
-		ArrayList<VhdlData> signals = new ArrayList<VhdlData>();
-        Iterator<VhdlData> itter = tempSignals.iterator();
-
-        while(itter.hasNext()){
-        	VhdlData o = (VhdlData) itter.next();
-        	if(!signals.contains(o)){signals.add(o);}//end if
-        }//end while
-        
-        //align signal code nicely
-        VHDLmanipulation manip = new VHDLmanipulation();
-      	manip.setMaxCodeLength(VHDLmanipulation.findMaxLenghtCode(signals));
-		signals = manip.alignCodeBlock(signals);
-		
-		File file = new File(path);
-		boolean createFile = false;
-		
-		if(!file.isDirectory()){
-			file.mkdirs();
-		}
-		
-		file = new File(path+"/"+  entityName+".vhd");
-		//Check if file exists
-		if(file.exists()){
-			int type = JOptionPane.showConfirmDialog(null, "File \"" + entityName+".vhd" + "\" already exists. Do you want to overwrite the file?");
-			if(type != JOptionPane.YES_OPTION){//close program
-				JOptionPane.showMessageDialog(null, "File has not been saved!");
-				createFile = false;
-				return null;
-			}else{
-				createFile = true;
-			}//end if NO selection
-		}else{
-			createFile = true;
-		}
-		
-		if(createFile){
-			try {
-				Writer output = null;
-				ArrayList<VhdlData> vhdlData = entity;
-				output = new BufferedWriter(new FileWriter(file));
-				
-				//Add header and copyright statements
-				output.write(VhdlFile.VHDL_HEADER_COPYRIGHT);
-				
-				//add VHDL_TEMPLATE_PART_A
-				output.write(VhdlFile.VHDL_TEMPLATE_PART_A);
-				
-				/*-------------------------------------------------------------*/
-				/*ADD package here*/
-				/*-------------------------------------------------------------*/
-				output.write(VhdlKeywords.getKeyword(VhdlKeywords.KEY_PACKAGEC_ID, upperCase) + " " + entityName + pkgSuffix.trim() + " " + VhdlKeywords.getKeyword(VhdlKeywords.KEY_IS_ID, upperCase)+ "\n");
-				for(int i = 0; i < component.size(); i++){
-					output.write(VHDLmanipulation.whiteSpaceCreator(VhdlKeywords.LEVEL_2)  + component.get(i).getCode() + "\n");	
-				}//end for
-				output.write(VhdlKeywords.getKeyword(VhdlKeywords.KEY_END_ID, upperCase) + " " + VhdlKeywords.getKeyword(VhdlKeywords.KEY_PACKAGEC_ID, upperCase)+ ";\n");
-				
-				
-					
-				/*-------------------------------------------------------------*/
-				/*ADD Libraries here*/
-				/*-------------------------------------------------------------*/
-				output.write(VhdlFile.getCommentSection("Libraries", VhdlKeywords.LEVEL_1 ));
-				output.write(VhdlFile.VHDL_TEMPLATE_PART_B);
-				output.write("\n");
-				output.write(VHDLmanipulation.whiteSpaceCreator(VhdlKeywords.LEVEL_1) + VhdlKeywords.getKeyword(VhdlKeywords.KEY_LIBRARY_ID, upperCase) + " work;\n" );
-				
-				if(vhdlComponents != null){
-					for(int i = 0; i < resultLibs.size(); i++){
-						output.write(VHDLmanipulation.whiteSpaceCreator(VhdlKeywords.LEVEL_1) + VhdlKeywords.getKeyword(VhdlKeywords.KEY_USE_ID, upperCase) + " work." +
-								resultLibs.get(i).getCode() +  "." + VhdlKeywords.getKeyword(VhdlKeywords.KEY_ALL_ID, upperCase) + ";\n");
-						
-						
-						/*if(!components.getComponents().get(components.getLibraryNames().get(i)).getIsTopLevel()){
-							output.write(VHDLmanipulation.whiteSpaceCreator(VhdlKeywords.LEVEL_1) + VhdlKeywords.getKeyword(VhdlKeywords.KEY_USE_ID, upperCase) + " work." +
-									 components.getComponents().get(components.getLibraryNames().get(i)).getVhdlPackageName().getCode() + "." + VhdlKeywords.getKeyword(VhdlKeywords.KEY_ALL_ID, upperCase) + ";\n");
-						}*/
-					}//end for(i)
-					output.write("\n");
-				}//end if component != null
-				
-				
-				/*-------------------------------------------------------------*/
-				/*ADD Entity here*/
-				/*-------------------------------------------------------------*/
-				output.write(VhdlFile.getCommentSection("Entity", VhdlKeywords.LEVEL_1 ));
-				
-				
-				
-				for(int i = 0; i < entity.size(); i++){
-					output.write(entity.get(i).getCode() + "\n");	
-				}//end for
-			
-				
-				/*-------------------------------------------------------------*/
-				//add architecture
-				/*-------------------------------------------------------------*/
-				output.write("\n"+VhdlFile.VHDL_TEMPLATE_PART_C);
-				
-				output.write(VHDLmanipulation.whiteSpaceCreator(VhdlKeywords.LEVEL_1)+ VhdlKeywords.getKeyword(VhdlKeywords.KEY_ARCHITECTURE_ID, upperCase) 
-						     + " arch " + VhdlKeywords.getKeyword(VhdlKeywords.KEY_OF_ID, upperCase) + " " + entityName+ " " + VhdlKeywords.getKeyword(VhdlKeywords.KEY_IS_ID, upperCase));
-				output.write("\n\n");
-				
-				/*-------------------------------------------------------------*/
-				/*add signals*/
-				/*-------------------------------------------------------------*/
-				vhdlData = new ArrayList<VhdlData>();
-				if(vhdlComponents != null){
-					for(int i = 0; i < signals.size(); i++){
-						output.write(VHDLmanipulation.whiteSpaceCreator(VhdlKeywords.LEVEL_2) + signals.get(i).getCode() + "\n");
-					}//end for (i)
-					output.write("\n");
-				}//end if component != null
-				
-				output.write(VhdlKeywords.getKeyword(VhdlKeywords.KEY_BEGIN_ID, upperCase)+ "\n");
-					
-				if(vhdlComponents != null){
-					/*-------------------------------------------------------------*/
-					/*add component instantiations here*/
-					/*-------------------------------------------------------------*/
-					for(int i = 0; i < vhdlComponents.size(); i++){
-						vhdlData = vhdlComponents.get(i).getVhdlComponentIntantiation(showUnusedInputs);
-						if(vhdlData != null){
-							output.write("\n");
-							output.write(VhdlFile.getCommentSection("Component " + vhdlComponents.get(i).getReference(), VhdlKeywords.LEVEL_2 ));
-						
-							for(int k = 0; k < vhdlData.size(); k++){
-								output.write(VHDLmanipulation.whiteSpaceCreator(VhdlKeywords.LEVEL_2) + vhdlData.get(k).getCode() +  vhdlData.get(k).getComment() + "\n");	
-							}//end for
-						}//end if is TopLevel
-					}//end for (i)
-				}//end if component != null
-				
-				output.write("\n");
-				output.write(VhdlKeywords.getKeyword(VhdlKeywords.KEY_END_ID, upperCase)+ " arch;\n");
-	
-				/*FILE END*/
-				output.close();
-				return file.getAbsolutePath();
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
-		}
-		return null;
-	}//end createVhdlFile(
+		return signals;
+	}//end getSignals()
 
 	
 	/**
@@ -317,30 +683,41 @@ public class VhdlFile {
 	 * @return
 	 */
 	public static String readFileConvertToString(File file){
-		String retVal = "";
+		try {
+			return readStreamConvertToString(new FileInputStream(file));
+		} catch (FileNotFoundException e) {
+			
+			e.printStackTrace();
+		}
+		
+		return "";
+		
+	}//end readFileConverterToString()
+	
+	/**
+	 * Read a stream line by line and return its content as a string, every line ends with "\n". The stream is closed.
+	 * @param stream
+	 * @return
+	 */
+	private static String readStreamConvertToString(InputStream stream){
+		StringBuilder retVal = new StringBuilder();
 
 		try {
-			FileInputStream fstream = new FileInputStream(file);
-			DataInputStream in = new DataInputStream(fstream);
-			BufferedReader br = new BufferedReader(new InputStreamReader(in));
+			BufferedReader br = new BufferedReader(new InputStreamReader(stream));
 			String line;
 			
 			while((line = br.readLine()) != null){
-				retVal += line + "\n";	
+				retVal.append(line).append('\n');	
 			}//end while
 			
 			br.close();
-		} catch (FileNotFoundException e) {
-			
-			e.printStackTrace();
 		} catch (IOException e) {
 			
 			e.printStackTrace();
 		}
 		
-		return retVal;
-		
-	}//end readFileConverterToString()
+		return retVal.toString();
+	}//end readStreamConvertToString()
 	
 	/**
 	 * This method reads the specified file and return its content as a string.
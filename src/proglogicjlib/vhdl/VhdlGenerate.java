@@ -0,0 +1,285 @@
+/*BSD 3 clause license
+
+Copyright (c) 2014, Thomas Kinder, info@thinkingsand.com
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification,are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation 
+   and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+   may be used to endorse or promote products derived from this software 
+   without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL Thomas Kinder OR CONTRIBUTORS
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package com.proglogicjlib.vhdl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+
+import com.proglogicjlib.data.Pin;
+
+/**
+ * Finds runs of identical component instances and codes every run as one for-generate statement. 
+ * A run is a sequence of consecutive components with the same value and the same pins, without generics. 
+ * Each pin of a run must either be connected the same way in all instances or be connected to a 
+ * std_logic net of its own in every instance. Those nets are combined to a vector signal that is indexed
+ * by the generate parameter, see VhdlNet.setVectorElement().
+ * The vectors are assigned when the object is created, call clear() to restore the net names.
+ */
+public class VhdlGenerate {
+	
+	/**Name of the generate parameter*/
+	public static final String LOOP_PARAMETER = "i";
+	
+	private static final int PIN_CONSTANT = 0;
+	private static final int PIN_VECTOR = 1;
+	
+	private ArrayList<VhdlComponent> vhdlComponents;
+	
+	/**Index after the last component of the run a component belongs to, 0 if it is not part of a run*/
+	private int[] runEnd;
+	/**Index of the first component of the run a component belongs to*/
+	private int[] runStart;
+	/**Component used to code the body of a run, set for the first component of a run*/
+	private VhdlComponent[] runBody;
+	private int runCount = 0;
+	
+	/**Nets that are vector elements now*/
+	private ArrayList<VhdlNet> vectorNets = new ArrayList<VhdlNet>();
+	/**Signal names in lower case, VHDL is not case sensitive*/
+	private HashSet<String> usedNames = new HashSet<String>();
+	
+	/**
+	 * Search the runs of identical instances and assign the vector signals of their nets
+	 * @param vhdlComponents components of the top level file in the order of their instantiations
+	 * @param minInstances minimal number of instances that are coded as for-generate
+	 */
+	public VhdlGenerate(ArrayList<VhdlComponent> vhdlComponents, int minInstances){
+		this.vhdlComponents = vhdlComponents;
+		this.runEnd = new int[vhdlComponents.size()];
+		this.runStart = new int[vhdlComponents.size()];
+		this.runBody = new VhdlComponent[vhdlComponents.size()];
+		
+		for(int i = 0; i < vhdlComponents.size(); i++){
+			VhdlComponent comp = vhdlComponents.get(i);
+			for(int k = 0; k < comp.getVhdlPinCount(); k++){
+				this.usedNames.add(comp.getVhdlPinHDLsigName(k).toLowerCase());
+			}//end for(k)
+		}//end for(i)
+		
+		int start = 0;
+		while(start < vhdlComponents.size()){
+			int end = start + 1;
+			while(end < vhdlComponents.size() && VhdlGenerate.isSameInstance(vhdlComponents.get(start), vhdlComponents.get(end))){
+				end++;
+			}//end while
+			
+			if(end - start >= Math.max(2, minInstances)){
+				this.createRun(start, end);
+			}//end if
+			start = end;
+		}//end while
+	}//end constructor
+	
+	/**
+	 * @return true if the components can be coded by the same generate body
+	 */
+	private static boolean isSameInstance(VhdlComponent a, VhdlComponent b){
+		if(a.getIsTopLevel() || b.getIsTopLevel() || a.hasVhdlGenerics() || b.hasVhdlGenerics()) return false;
+		if(!a.getValue().equals(b.getValue()) || a.getVhdlPinCount() != b.getVhdlPinCount()) return false;
+		
+		for(int k = 0; k < a.getVhdlPinCount(); k++){
+			Pin pinA = a.getVhdlPinData(k);
+			Pin pinB = b.getVhdlPinData(k);
+			if(pinA == pinB) continue;//shared pins of the same part
+			
+			if(!pinA.getName().equals(pinB.getName()) || !String.valueOf(pinA.getType()).equals(String.valueOf(pinB.getType())) || pinA.getIsVector() != pinB.getIsVector() 
+					|| !String.valueOf(pinA.getSize()).equals(String.valueOf(pinB.getSize()))){
+				return false;
+			}//end if
+			if(!String.valueOf(a.getVhdlPinDatatype(k)).equals(String.valueOf(b.getVhdlPinDatatype(k)))) return false;
+		}//end for(k)
+		
+		return true;
+	}//end isSameInstance()
+	
+	/**
+	 * Check the connections of the run and create its generate body
+	 * @param start index of the first component
+	 * @param end index after the last component
+	 */
+	private void createRun(int start, int end){
+		VhdlComponent first = this.vhdlComponents.get(start);
+		int pinCount = first.getVhdlPinCount();
+		int[] pinKind = new int[pinCount];
+		
+		//every net that becomes a vector element must be used by one pin of the run only
+		IdentityHashMap<VhdlNet, Integer> netUses = new IdentityHashMap<VhdlNet, Integer>();
+		for(int i = start; i < end; i++){
+			for(int k = 0; k < pinCount; k++){
+				VhdlNet net = this.vhdlComponents.get(i).getVhdlPinNet(k);
+				if(net != null){
+					Integer uses = netUses.get(net);
+					netUses.put(net, uses == null ? 1 : uses + 1);
+				}//end if
+			}//end for(k)
+		}//end for(i)
+		
+		for(int k = 0; k < pinCount; k++){
+			if(this.isConstantPin(start, end, k)){
+				pinKind[k] = PIN_CONSTANT;
+			}else if(this.isVectorPin(start, end, k, netUses)){
+				pinKind[k] = PIN_VECTOR;
+			}else{
+				return;
+			}//end if
+		}//end for(k)
+		
+		//body of the generate statement, its pins refer to the vectors indexed by the generate parameter
+		VhdlComponent body = new VhdlComponent(first.getReference(), first.getValue());
+		body.setUpperCase(first.getUpperCase());
+		Pin[] pins = new Pin[pinCount];
+		for(int k = 0; k < pinCount; k++){
+			pins[k] = first.getVhdlPinData(k);
+		}//end for(k)
+		body.setVhdlPinTemplates(pins, pinCount > 0 ? first.getVhdlPinDatatype(0) : null);
+		
+		for(int k = 0; k < pinCount; k++){
+			VhdlNet net = first.getVhdlPinNet(k);
+			if(pinKind[k] == PIN_VECTOR){
+				String vectorName = this.getUniqueName(first.getReference() + "_" + pins[k].getName());
+				for(int i = start; i < end; i++){
+					VhdlNet element = this.vhdlComponents.get(i).getVhdlPinNet(k);
+					element.setVectorElement(vectorName, i - start, end - start);
+					this.vectorNets.add(element);
+				}//end for(i)
+				body.setVhdlPinNet(k, new VhdlNet(-1, vectorName + "(" + LOOP_PARAMETER + ")"), false);
+			}else if(net != null){
+				body.setVhdlPinNet(k, net, false);
+			}else if(!first.getVhdlPinHDLsigName(k).equals("")){//signal name without net object
+				body.setVhdlPinNet(k, new VhdlNet(-1, first.getVhdlPinHDLsigName(k)), false);
+			}//end if
+		}//end for(k)
+		
+		for(int i = start; i < end; i++){
+			this.runStart[i] = start;
+			this.runEnd[i] = end;
+		}//end for(i)
+		this.runBody[start] = body;
+		this.runCount++;
+	}//end createRun()
+	
+	/**
+	 * @return true if the pin is connected to the same net or signal name in all instances of the run
+	 */
+	private boolean isConstantPin(int start, int end, int k){
+		VhdlNet net = this.vhdlComponents.get(start).getVhdlPinNet(k);
+		String name = this.vhdlComponents.get(start).getVhdlPinHDLsigName(k);
+		for(int i = start + 1; i < end; i++){
+			if(this.vhdlComponents.get(i).getVhdlPinNet(k) != net) return false;
+			if(net == null && !this.vhdlComponents.get(i).getVhdlPinHDLsigName(k).equals(name)) return false;
+		}//end for(i)
+		return true;
+	}//end isConstantPin()
+	
+	/**
+	 * @return true if the pin is a std_logic pin that is connected to an internal net of its own in all instances of the run 
+	 */
+	private boolean isVectorPin(int start, int end, int k, IdentityHashMap<VhdlNet, Integer> netUses){
+		VhdlComponent first = this.vhdlComponents.get(start);
+		String datatype = first.getVhdlPinDatatype(k);
+		if(first.getVhdlPinData(k).getIsVector()) return false;
+		if(!VhdlKeywords.TYPE_STD_LOGIC.equalsIgnoreCase(datatype) && !VhdlKeywords.TYPE_STD_ULOGIC.equalsIgnoreCase(datatype)) return false;
+		
+		for(int i = start; i < end; i++){
+			VhdlNet net = this.vhdlComponents.get(i).getVhdlPinNet(k);
+			if(net == null || net.getIsTopLevel() || net.getIsVectorElement() || netUses.get(net) != 1) return false;
+			if(!this.vhdlComponents.get(i).getVhdlPinIsSignal(k)) return false;
+		}//end for(i)
+		return true;
+	}//end isVectorPin()
+	
+	/**
+	 * @return name that is not used by any other signal, the name is reserved
+	 */
+	private String getUniqueName(String name){
+		String unique = name;
+		for(int n = 1; this.usedNames.contains(unique.toLowerCase()); n++){
+			unique = name + "_v" + (n > 1 ? n : "");
+		}//end for(n)
+		this.usedNames.add(unique.toLowerCase());
+		return unique;
+	}//end getUniqueName()
+	
+	/**
+	 * Restore the net names of all nets that have been combined to vectors
+	 */
+	public void clear(){
+		for(int i = 0; i < this.vectorNets.size(); i++){
+			this.vectorNets.get(i).clearVectorElement();
+		}//end for(i)
+		this.vectorNets.clear();
+	}//end clear()
+	
+	/**
+	 * @return number of runs that are coded as for-generate
+	 */
+	public int getRunCount(){return this.runCount;}
+	
+	/**
+	 * @param index index of the component
+	 * @return true if the component is coded as part of a for-generate statement
+	 */
+	public boolean isRunMember(int index){return this.runEnd[index] != 0;}
+	
+	/**
+	 * @param index index of the component
+	 * @return true if the for-generate statement is written at the position of the component
+	 */
+	public boolean isRunStart(int index){return this.runEnd[index] != 0 && this.runStart[index] == index;}
+	
+	/**
+	 * Write the for-generate statement of a run
+	 * @param out
+	 * @param start index of the first component of the run
+	 * @param upperCase
+	 * @param showUnusedInputs
+	 * @param leadingWhiteSpaces
+	 * @throws IOException
+	 */
+	public void writeRun(Appendable out, int start, boolean upperCase, boolean showUnusedInputs, int leadingWhiteSpaces) throws IOException{
+		int end = this.runEnd[start];
+		String label = "gen_" + this.vhdlComponents.get(start).getReference();
+		
+		out.append("\n");
+		out.append(VhdlFile.getCommentSection("Components " + this.vhdlComponents.get(start).getReference() + " to " + this.vhdlComponents.get(end-1).getReference(), leadingWhiteSpaces));
+		VHDLmanipulation.appendWhiteSpace(out, leadingWhiteSpaces);
+		out.append(label).append(" : ").append(VhdlKeywords.getKeyword(VhdlKeywords.KEY_FOR_ID, upperCase)).append(" ").append(LOOP_PARAMETER).append(" ")
+			.append(VhdlKeywords.getKeyword(VhdlKeywords.KEY_IN_ID, upperCase)).append(" 0 ").append(VhdlKeywords.getKeyword(VhdlKeywords.KEY_TO_ID, upperCase))
+			.append(" ").append(String.valueOf(end - start - 1)).append(" ").append(VhdlKeywords.getKeyword(VhdlKeywords.KEY_GENERATE_ID, upperCase)).append("\n");
+		this.runBody[start].writeVhdlComponentInstantiation(out, showUnusedInputs, leadingWhiteSpaces + VhdlKeywords.LEVEL_2);
+		VHDLmanipulation.appendWhiteSpace(out, leadingWhiteSpaces);
+		out.append(VhdlKeywords.getKeyword(VhdlKeywords.KEY_END_ID, upperCase)).append(" ").append(VhdlKeywords.getKeyword(VhdlKeywords.KEY_GENERATE_ID, upperCase))
+			.append(" ").append(label).append(";\n");
+	}//end writeRun()
+	
+}//end class
@@ -34,6 +34,8 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 package com.proglogicjlib.vhdl;
 
+import java.util.Objects;
+
 public class VhdlGeneric {
 	private  String name;
 	private String value;
@@ -112,6 +114,24 @@ public class VhdlGeneric {
 		else return false;		
 	}//end isVector()
 	
+	/**
+	 * Generics are equal if all their parameters are equal
+	 */
+	@Override
+	public boolean equals(Object o){
+		if(o == this) return true;
+		if(!(o instanceof VhdlGeneric)) return false;
+		
+		VhdlGeneric generic = (VhdlGeneric)o;
+		return this.isActive == generic.isActive && Objects.equals(this.name, generic.name) && Objects.equals(this.value, generic.value) 
+				&& Objects.equals(this.datatype, generic.datatype) && Objects.equals(this.size, generic.size) && Objects.equals(this.compReference, generic.compReference);
+	}//end equals()
+	
+	@Override
+	public int hashCode(){
+		return Objects.hash(this.isActive, this.name, this.value, this.datatype, this.size, this.compReference);
+	}//end hashCode()
+	
 	
 	
 }//end class
@@ -33,6 +33,9 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 package com.proglogicjlib.vhdl;
 
+import java.util.Arrays;
+import java.util.HashSet;
+
 import com.proglogicjlib.misc.InfoAndMessages;
 import com.proglogicjlib.misc.WarningException;
 
@@ -40,10 +43,10 @@ import com.proglogicjlib.misc.WarningException;
 
 public class VhdlKeywords {
 	
-    private static String VHDL_KEYWORDS_TYPE_NOT_SUPPORTED_ID = "(VHDL_KEY:001)";
-    private static String VHDL_KEYWORDS_TYPE_NOT_SUPPORTED = VHDL_KEYWORDS_TYPE_NOT_SUPPORTED_ID + "The defined type is not supported.";
+    private static final String VHDL_KEYWORDS_TYPE_NOT_SUPPORTED_ID = "(VHDL_KEY:001)";
+    private static final String VHDL_KEYWORDS_TYPE_NOT_SUPPORTED = VHDL_KEYWORDS_TYPE_NOT_SUPPORTED_ID + "The defined type is not supported.";
 	
-	private static String[] keywords = {
+	private static final String[] keywords = {
 		"port map", //id 0
 		"entity",   //id 1
 		"is",       //id 2
@@ -81,50 +84,56 @@ public class VhdlKeywords {
         "process", //id 34
         "if", //id 35
         "rising_edge", //id 36
-        "then"//id 37
+        "then", //id 37
+        "generate", //id 38
+        "for", //id 39
+        "to" //id 40
 	};
 	
 	/**
 	 * Keyword ID s for all used vhdl keywords
 	 */
-	public static int KEY_PORTMAP_ID = 0;
-	public static int KEY_ENTITY_ID = 1;
-	public static int KEY_IS_ID = 2;
-	public static int KEY_PORT_ID = 3;
-	public static int KEY_STD_LOGIC_ID = 4;
-	public static int KEY_STD_LOGIC_VECTOR_ID = 5;
-	public static int KEY_END_ID = 6;
-	public static int KEY_SIGNAL_ID = 7;
-	public static int KEY_IN_ID = 8;
-	public static int KEY_OUT_ID = 9;
-	public static int KEY_INOUT_ID = 10;
-	public static int KEY_OPEN_ID = 11;
-	public static int KEY_COMPONENT_ID = 12;
-	public static int KEY_INTEGER_ID = 13;
-	public static int KEY_GENERIC_ID = 14;
-	public static int KEY_PACKAGEC_ID = 15;
-	public static int KEY_ARCHITECTURE_ID = 16;
-	public static int KEY_OF_ID = 17;
-	public static int KEY_BEGIN_ID = 18;
-	public static int KEY_OTHERS_ID = 19;
-	public static int KEY_DOWNTO_ID = 20;
-	public static int KEY_LIBRARY_ID = 21;
-	public static int KEY_USE_ID = 22;
-	public static int KEY_ALL_ID = 23;
-	public static int KEY_STD_ULOGIC_ID = 24;
-	public static int KEY_STD_ULOGIC_VECTOR_ID = 25;
-	public static int KEY_BOOL_ID = 26;
-	public static int KEY_MAP_ID = 27;
-	public static int KEY_NATURAL_ID = 28;
-	public static int KEY_WHEN_ID = 29;
-	public static int KEY_AND_ID = 30;
-	public static int KEY_ELSE_ID = 31;
-	public static int KEY_WORK_ID = 32;
-	public static int KEY_XOR_ID = 33;
-	public static int KEY_PROCESS_ID = 34;
-	public static int KEY_IF_ID = 35;
-	public static int KEY_RISING_EDGE_ID = 36;
-	public static int KEY_THEN_ID = 37;
+	public static final int KEY_PORTMAP_ID = 0;
+	public static final int KEY_ENTITY_ID = 1;
+	public static final int KEY_IS_ID = 2;
+	public static final int KEY_PORT_ID = 3;
+	public static final int KEY_STD_LOGIC_ID = 4;
+	public static final int KEY_STD_LOGIC_VECTOR_ID = 5;
+	public static final int KEY_END_ID = 6;
+	public static final int KEY_SIGNAL_ID = 7;
+	public static final int KEY_IN_ID = 8;
+	public static final int KEY_OUT_ID = 9;
+	public static final int KEY_INOUT_ID = 10;
+	public static final int KEY_OPEN_ID = 11;
+	public static final int KEY_COMPONENT_ID = 12;
+	public static final int KEY_INTEGER_ID = 13;
+	public static final int KEY_GENERIC_ID = 14;
+	public static final int KEY_PACKAGEC_ID = 15;
+	public static final int KEY_ARCHITECTURE_ID = 16;
+	public static final int KEY_OF_ID = 17;
+	public static final int KEY_BEGIN_ID = 18;
+	public static final int KEY_OTHERS_ID = 19;
+	public static final int KEY_DOWNTO_ID = 20;
+	public static final int KEY_LIBRARY_ID = 21;
+	public static final int KEY_USE_ID = 22;
+	public static final int KEY_ALL_ID = 23;
+	public static final int KEY_STD_ULOGIC_ID = 24;
+	public static final int KEY_STD_ULOGIC_VECTOR_ID = 25;
+	public static final int KEY_BOOL_ID = 26;
+	public static final int KEY_MAP_ID = 27;
+	public static final int KEY_NATURAL_ID = 28;
+	public static final int KEY_WHEN_ID = 29;
+	public static final int KEY_AND_ID = 30;
+	public static final int KEY_ELSE_ID = 31;
+	public static final int KEY_WORK_ID = 32;
+	public static final int KEY_XOR_ID = 33;
+	public static final int KEY_PROCESS_ID = 34;
+	public static final int KEY_IF_ID = 35;
+	public static final int KEY_RISING_EDGE_ID = 36;
+	public static final int KEY_THEN_ID = 37;
+	public static final int KEY_GENERATE_ID = 38;
+	public static final int KEY_FOR_ID = 39;
+	public static final int KEY_TO_ID = 40;
 	
 
 
@@ -132,17 +141,42 @@ public class VhdlKeywords {
 	/**
 	 * The level of the code for text alignment in vhd file (number of leading whitespaces in a line of one level)
 	 */
-	public static int LEVEL_1 = 0;
-	public static int LEVEL_2 = 2;
-	public static int LEVEL_3 = 4;
+	public static final int LEVEL_1 = 0;
+	public static final int LEVEL_2 = 2;
+	public static final int LEVEL_3 = 4;
 	
 	/**
 	 * Names that are not allowed to used by the user others thatn the vhdl restricitons
 	 */
-	public static String reservedLibraries[] = {
+	public static final String reservedLibraries[] = {
 		"TOP_IN"
 	};
 	
+	/**
+	 * Reserved words of VHDL-2008 and the library names of the generated files, they can not be used as identifiers
+	 */
+	private static final HashSet<String> reservedWords = new HashSet<String>(Arrays.asList(
+		"abs", "access", "after", "alias", "all", "and", "architecture", "array", "assert", "assume", "assume_guarantee", 
+		"attribute", "begin", "block", "body", "buffer", "bus", "case", "component", "configuration", "constant", "context", 
+		"cover", "default", "disconnect", "downto", "else", "elsif", "end", "entity", "exit", "fairness", "file", "for", 
+		"force", "function", "generate", "generic", "group", "guarded", "if", "impure", "in", "inertial", "inout", "is", 
+		"label", "library", "linkage", "literal", "loop", "map", "mod", "nand", "new", "next", "nor", "not", "null", "of", 
+		"on", "open", "or", "others", "out", "package", "parameter", "port", "postponed", "procedure", "process", "property", 
+		"protected", "pure", "range", "record", "register", "reject", "release", "rem", "report", "restrict", 
+		"restrict_guarantee", "return", "rol", "ror", "select", "sequence", "severity", "shared", "signal", "sla", "sll", 
+		"sra", "srl", "strong", "subtype", "then", "to", "transport", "type", "unaffected", "units", "until", "use", 
+		"variable", "vmode", "vprop", "vunit", "wait", "when", "while", "with", "xnor", "xor", 
+		"ieee", "std", "work"));
+	
+	/**
+	 * Check if a name is a VHDL reserved word or a library name of the generated files
+	 * @param name
+	 * @return
+	 */
+	public static boolean isReservedWord(String name){
+		return reservedWords.contains(name.toLowerCase());
+	}//end isReservedWord()
+	
 	/**
 	 * Check if the name is defined as a reserved library name
 	 * @param name
@@ -179,11 +213,11 @@ public class VhdlKeywords {
      * @param isVector
      * @return
      */
-    public static String TYPE_INTEGER = "int";
-    public static String TYPE_STD_LOGIC = "stdl";
-    public static String TYPE_STD_ULOGIC = "stdul";
-    public static String TYPE_BOOL = "bool";
-    public static String TYPE_NATURAL = "nat";
+    public static final String TYPE_INTEGER = "int";
+    public static final String TYPE_STD_LOGIC = "stdl";
+    public static final String TYPE_STD_ULOGIC = "stdul";
+    public static final String TYPE_BOOL = "bool";
+    public static final String TYPE_NATURAL = "nat";
     
 	public static String getDataType(String type, boolean upperCase, boolean isVector, String warnName) throws WarningException{
 		if(type == null || type.equals("")){	
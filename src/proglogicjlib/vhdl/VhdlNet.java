@@ -0,0 +1,102 @@
+/*BSD 3 clause license
+
+Copyright (c) 2014, Thomas Kinder, info@thinkingsand.com
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification,are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation 
+   and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+   may be used to endorse or promote products derived from this software 
+   without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL Thomas Kinder OR CONTRIBUTORS
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package com.proglogicjlib.vhdl;
+/**
+ * This class represents a net of a schematic. All pins that are connected to the net refer to 
+ * the same object, renaming the net therefore renames the HDL signal of all its pins at once.
+ */
+public class VhdlNet {
+	private int id;
+	private String name;
+	private boolean isTopLevel;
+	private String vectorName;
+	private int vectorIndex;
+	private int vectorSize;
+	private String elementName;
+	
+	/**
+	 * @param id index of the net in the netlist, starting with 0
+	 * @param name HDL signal name of the net
+	 */
+	public VhdlNet(int id, String name){
+		this.id = id;
+		this.name = name;
+		this.isTopLevel = false;
+	}//end constructor
+	
+	/**
+	 * Connect the net to a top level pin. The net gets the signal name of the top level pin and 
+	 * the pins of the net are no longer coded as signals.
+	 * @param name signal name of the top level pin
+	 */
+	public void setTopLevelName(String name){
+		this.name = name;
+		this.isTopLevel = true;
+	}//end setTopLevelName()
+	
+	/**
+	 * Make the net an element of a vector signal, the pins of the net then refer to
+	 * vectorName(index) instead of the net name. Used for the for-generate coding of 
+	 * identical component instances.
+	 * @param vectorName name of the vector signal
+	 * @param index index of the net within the vector
+	 * @param size number of elements of the vector
+	 */
+	public void setVectorElement(String vectorName, int index, int size){
+		this.vectorName = vectorName;
+		this.vectorIndex = index;
+		this.vectorSize = size;
+		this.elementName = vectorName + "(" + index + ")";
+	}//end setVectorElement()
+	
+	/**
+	 * Remove the net from its vector signal, the pins refer to the net name again.
+	 */
+	public void clearVectorElement(){
+		this.vectorName = null;
+		this.elementName = null;
+	}//end clearVectorElement()
+	
+	public void setName(String name){this.name = name;}
+	public int getId(){return this.id;}
+	public String getName(){
+		if(this.elementName != null){
+			return this.elementName;
+		}//end if
+		return this.name;
+	}//end getName()
+	public boolean getIsTopLevel(){return this.isTopLevel;}
+	public boolean getIsVectorElement(){return this.vectorName != null;}
+	public String getVectorName(){return this.vectorName;}
+	public int getVectorIndex(){return this.vectorIndex;}
+	public int getVectorSize(){return this.vectorSize;}
+	
+}//end class
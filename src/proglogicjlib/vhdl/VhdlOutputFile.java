@@ -0,0 +1,270 @@
+/*BSD 3 clause license
+
+Copyright (c) 2014, Thomas Kinder, info@thinkingsand.com
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification,are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation 
+   and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+   may be used to endorse or promote products derived from this software 
+   without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL Thomas Kinder OR CONTRIBUTORS
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package com.proglogicjlib.vhdl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import com.proglogicjlib.misc.ConversionMonitor;
+
+/**
+ * Writes a file through a temporary file in the same directory. The content is encoded into a byte buffer 
+ * and written to a file channel, a hash of the content is computed on the way. commit() moves the temporary
+ * file into place in one step, isUnchanged() tells if the existing file already has the same content so the
+ * file can be left untouched.
+ * Usage: write the content, close(), isUnchanged(), commit() or discard().
+ */
+public class VhdlOutputFile extends Writer {
+	private static final int BUFFER_SIZE = 65536;
+	private static final String HASH_ALGORITHM = "SHA-256";
+	
+	private Path target;
+	private Path temp;
+	private Charset charset;
+	private FileChannel channel;
+	private CharsetEncoder encoder;
+	private CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+	private ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE * 4);
+	private MessageDigest digest;
+	private byte[] hash = null;
+	private long size = 0;
+	private ConversionMonitor monitor = null;
+	
+	/**
+	 * Create the temporary file for a target file
+	 * @param target file that will be replaced by commit()
+	 * @param charset charset of the file
+	 * @throws IOException
+	 */
+	public VhdlOutputFile(File target, Charset charset) throws IOException{
+		this.target = target.getAbsoluteFile().toPath();
+		this.charset = charset;
+		this.encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.digest = createDigest();
+		
+		for(int i = 0; this.channel == null; i++){//the temporary file is created with the default permissions of the directory
+			this.temp = this.target.resolveSibling("." + this.target.getFileName() + "." + System.nanoTime() + i + ".tmp");
+			try {
+				this.channel = FileChannel.open(this.temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+			} catch (FileAlreadyExistsException e) {
+				//try another name
+			}//end try
+		}//end for(i)
+	}//end constructor
+	
+	/**
+	 * Report the written bytes to a monitor and stop writing when it is cancelled
+	 * @param monitor monitor of the conversion, null = none (default)
+	 */
+	public void setMonitor(ConversionMonitor monitor){this.monitor = monitor;}
+	
+	public Charset getCharset(){return this.charset;}
+	public Path getTarget(){return this.target;}
+	
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException{
+		while(len > 0){
+			int length = Math.min(len, this.chars.remaining());
+			this.chars.put(cbuf, off, length);
+			off += length;
+			len -= length;
+			if(!this.chars.hasRemaining()) this.encodeChars(false);
+		}//end while
+	}//end write()
+	
+	@Override
+	public void write(String str, int off, int len) throws IOException{
+		while(len > 0){
+			int length = Math.min(len, this.chars.remaining());
+			this.chars.put(str, off, off + length);
+			off += length;
+			len -= length;
+			if(!this.chars.hasRemaining()) this.encodeChars(false);
+		}//end while
+	}//end write()
+	
+	@Override
+	public void write(int c) throws IOException{
+		this.chars.put((char) c);
+		if(!this.chars.hasRemaining()) this.encodeChars(false);
+	}//end write()
+	
+	@Override
+	public Writer append(CharSequence csq, int start, int end) throws IOException{
+		if(csq instanceof String){
+			this.write((String) csq, start, end - start);
+			return this;
+		}//end if
+		for(int i = start; i < end; i++){
+			this.write(csq.charAt(i));
+		}//end for(i)
+		return this;
+	}//end append()
+	
+	@Override
+	public Writer append(CharSequence csq) throws IOException{
+		return this.append(csq, 0, csq.length());
+	}//end append()
+	
+	/**
+	 * Write text that has already been encoded with the charset of this file, e.g. constant parts of a template
+	 * @param encoded
+	 * @throws IOException
+	 */
+	public void writeEncoded(byte[] encoded) throws IOException{
+		this.encodeChars(false);
+		if(this.chars.position() > 0){//an incomplete character is pending, the encoded text must not be written before it
+			this.write(new String(encoded, this.charset));
+			return;
+		}//end if
+		this.writeBytes(ByteBuffer.wrap(encoded));
+	}//end writeEncoded()
+	
+	@Override
+	public void flush() throws IOException{
+		this.encodeChars(false);
+	}//end flush()
+	
+	/**
+	 * Write the rest of the content and close the temporary file
+	 */
+	@Override
+	public void close() throws IOException{
+		if(this.hash != null) return;
+		
+		this.encodeChars(true);
+		this.bytes.clear();
+		this.encoder.flush(this.bytes);
+		this.bytes.flip();
+		this.writeBytes(this.bytes);
+		this.channel.close();
+		this.hash = this.digest.digest();
+	}//end close()
+	
+	/**
+	 * Check if the target file exists and has the same content as the temporary file. Closes the temporary file.
+	 * @return
+	 * @throws IOException
+	 */
+	public boolean isUnchanged() throws IOException{
+		this.close();
+		if(!Files.isRegularFile(this.target) || Files.size(this.target) != this.size) return false;
+		
+		MessageDigest existing = createDigest();
+		FileChannel in = FileChannel.open(this.target, StandardOpenOption.READ);
+		try {
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			while(in.read(buffer) >= 0){
+				buffer.flip();
+				existing.update(buffer);
+				buffer.clear();
+			}//end while
+		} finally {
+			in.close();
+		}//end try
+		return Arrays.equals(existing.digest(), this.hash);
+	}//end isUnchanged()
+	
+	/**
+	 * Move the temporary file to the target file. The target is replaced in one step if the file system supports it.
+	 * @throws IOException
+	 */
+	public void commit() throws IOException{
+		this.close();
+		try {
+			Files.move(this.temp, this.target, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(this.temp, this.target, StandardCopyOption.REPLACE_EXISTING);
+		}//end try
+	}//end commit()
+	
+	/**
+	 * Delete the temporary file, the target file is not changed
+	 */
+	public void discard(){
+		try {
+			this.channel.close();
+			Files.deleteIfExists(this.temp);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}//end try
+	}//end discard()
+	
+	private void encodeChars(boolean endOfInput) throws IOException{
+		this.chars.flip();
+		while(true){
+			CoderResult result = this.encoder.encode(this.chars, this.bytes, endOfInput);
+			if(result.isOverflow() || this.bytes.position() > 0){
+				this.bytes.flip();
+				this.writeBytes(this.bytes);
+				this.bytes.clear();
+			}//end if
+			if(!result.isOverflow()) break;
+		}//end while
+		this.chars.compact();
+	}//end encodeChars()
+	
+	private void writeBytes(ByteBuffer buffer) throws IOException{
+		ByteBuffer hashed = buffer.duplicate();
+		this.digest.update(hashed);
+		this.size += buffer.remaining();
+		if(this.monitor != null) this.monitor.progress(ConversionMonitor.PHASE_BYTES_WRITTEN, buffer.remaining(), -1);
+		while(buffer.hasRemaining()){
+			this.channel.write(buffer);
+		}//end while
+	}//end writeBytes()
+	
+	private static MessageDigest createDigest(){
+		try {
+			return MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {//every java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}//end try
+	}//end createDigest()
+	
+}//end class
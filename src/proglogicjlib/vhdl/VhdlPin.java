@@ -33,6 +33,8 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 package com.proglogicjlib.vhdl;
 
+import java.util.Objects;
+
 import com.proglogicjlib.data.Pin;
 import com.proglogicjlib.misc.WarningException;
 
@@ -57,6 +59,11 @@ public class VhdlPin extends Pin {
 	 */
 	private String HDLsigName;
 	
+	/**
+	 * Net the pin is connected to, null if the pin uses its own signal name
+	 */
+	private VhdlNet net;
+	
 	
 	/**
 	 * Constructor initializes internal variables
@@ -83,6 +90,7 @@ public class VhdlPin extends Pin {
      	 this.isSignal = isSignal_s;
      	 this.isTopLevel = isTopLevel_s;
      	 this.HDLsigName = HDLsigName_s;
+     	 this.net = pin.net;
 	}//end constructor
 	
 	public VhdlPin(Pin pin, String datatype, String hdlSigName){
@@ -94,8 +102,23 @@ public class VhdlPin extends Pin {
 	public void setDatatype(String datatype){this.datatype = datatype;}
 	public String getDatatype(){return this.datatype;}
 	public boolean getIsTopLevel(){return this.isTopLevel;}
-	public boolean getIsSignal(){return this.isSignal;}
-	public String getHDLsigName(){return this.HDLsigName;}
+	public VhdlNet getNet(){return this.net;}
+	
+	/**
+	 * @return false if the pin is connected to a net of a top level pin, else the isSignal attribute
+	 */
+	public boolean getIsSignal(){
+		if(this.net != null && this.net.getIsTopLevel()) return false;
+		return this.isSignal;
+	}//end getIsSignal()
+	
+	/**
+	 * @return name of the net the pin is connected to or the signal name of the pin if it is not connected to a net object
+	 */
+	public String getHDLsigName(){
+		if(this.net != null) return this.net.getName();
+		return this.HDLsigName;
+	}//end getHDLsigName()
 	
 	/**
 	 * Converts the data type of this pin into VHDL conform code 
@@ -164,7 +187,33 @@ public class VhdlPin extends Pin {
 	 * in the schematic file will determine the name of a net. The attribute HDLsigName will contain the net to which an inout is connected to. 
 	 * @param name
 	 */
-	public void setHDLsigName(String name){this.HDLsigName = name;}
+	public void setHDLsigName(String name){
+		this.HDLsigName = name;
+		this.net = null;
+	}//end setHDLsigName()
+	
+	/**
+	 * Connect the pin to a net, the pin uses the name of the net as HDL signal name afterwards
+	 * @param net
+	 */
+	public void setNet(VhdlNet net){this.net = net;}
+	
+	/**
+	 * Pins are equal if the pin data, the data type and the signal the pin is connected to are equal
+	 */
+	@Override
+	public boolean equals(Object o){
+		if(!super.equals(o)) return false;
+		
+		VhdlPin pin = (VhdlPin)o;
+		return this.isTopLevel == pin.isTopLevel && this.getIsSignal() == pin.getIsSignal() && Objects.equals(this.datatype, pin.datatype) 
+				&& Objects.equals(this.getHDLsigName(), pin.getHDLsigName());
+	}//end equals()
+	
+	@Override
+	public int hashCode(){
+		return 31 * super.hashCode() + Objects.hash(this.isTopLevel, this.getIsSignal(), this.datatype, this.getHDLsigName());
+	}//end hashCode()
 	
 	
 	
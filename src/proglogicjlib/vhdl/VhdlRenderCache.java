@@ -0,0 +1,240 @@
+/*BSD 3 clause license
+
+Copyright (c) 2014, Thomas Kinder, info@thinkingsand.com
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification,are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation 
+   and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+   may be used to endorse or promote products derived from this software 
+   without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL Thomas Kinder OR CONTRIBUTORS
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package com.proglogicjlib.vhdl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache of rendered VHDL code by the content hash of the code's input, see VhdlComponent.getContentHash(). 
+ * Keep one cache over several conversions of a project, code that is already in the cache is not rendered again.
+ * The cache can be saved to a file and is loaded from this file when it is created. Only the entries that have
+ * been used since the cache was created are saved. The cache can be used by several threads at once.
+ */
+public class VhdlRenderCache {
+	private static final String FILE_HEADER = "VhdlRenderCache 1";
+	private static final String HASH_ALGORITHM = "SHA-256";
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	private static final Charset CHARSET = Charset.forName("UTF-8");
+	
+	private File file;
+	private ConcurrentHashMap<String, String> entries = new ConcurrentHashMap<String, String>();
+	private Set<String> usedKeys = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	/**The file is written under this lock, it does not pin a virtual thread to its carrier like synchronized*/
+	private final ReentrantLock saveLock = new ReentrantLock();
+	private AtomicInteger hits = new AtomicInteger();
+	private AtomicInteger misses = new AtomicInteger();
+	
+	/**
+	 * Create a cache that is only kept in memory
+	 */
+	public VhdlRenderCache(){
+		this.file = null;
+	}//end constructor
+	
+	/**
+	 * Create a cache that is saved in a file. The entries of the file are loaded if it exists, 
+	 * a file that can not be read is ignored.
+	 * @param file
+	 */
+	public VhdlRenderCache(File file){
+		this.file = file;
+		if(file.isFile()){
+			try {
+				this.load(new String(Files.readAllBytes(file.toPath()), CHARSET));
+			} catch (IOException e) {
+				e.printStackTrace();
+			}//end try
+		}//end if
+	}//end constructor
+	
+	/**
+	 * Read the entries of a cache file: a header line followed by entries of a key line "key length" and length 
+	 * characters of code
+	 */
+	private void load(String content){
+		if(!content.startsWith(FILE_HEADER + "\n")) return;
+		
+		int pos = FILE_HEADER.length() + 1;
+		while(pos < content.length()){
+			int separator = content.indexOf(' ', pos);
+			int lineEnd = content.indexOf('\n', pos);
+			if(separator < 0 || lineEnd < separator){//damaged file, drop all entries
+				this.entries.clear();
+				return;
+			}//end if
+			
+			int length;
+			try {
+				length = Integer.parseInt(content.substring(separator + 1, lineEnd));
+			} catch (NumberFormatException e) {
+				this.entries.clear();
+				return;
+			}//end try
+			if(length < 0 || lineEnd + 1 + length > content.length()){
+				this.entries.clear();
+				return;
+			}//end if
+			
+			this.entries.put(content.substring(pos, separator), content.substring(lineEnd + 1, lineEnd + 1 + length));
+			pos = lineEnd + 1 + length;
+		}//end while
+	}//end load()
+	
+	/**
+	 * Save all entries that have been used since the cache has been created. The file is replaced atomically.
+	 * Nothing happens if the cache has no file.
+	 * @throws IOException
+	 */
+	public void save() throws IOException{
+		if(this.file == null) return;
+		
+		this.saveLock.lock();
+		try {
+			this.saveFile();
+		} finally {
+			this.saveLock.unlock();
+		}//end try
+	}//end save()
+	
+	/**
+	 * Write the used entries to the file, the caller holds the save lock
+	 */
+	private void saveFile() throws IOException{
+		File dir = this.file.getAbsoluteFile().getParentFile();
+		if(dir != null && !dir.isDirectory()) dir.mkdirs();
+		
+		VhdlOutputFile output = new VhdlOutputFile(this.file, CHARSET);
+		try {
+			output.append(FILE_HEADER).append('\n');
+			for(Map.Entry<String, String> entry : this.entries.entrySet()){
+				if(!this.usedKeys.contains(entry.getKey())) continue;
+				output.append(entry.getKey()).append(' ').append(String.valueOf(entry.getValue().length())).append('\n');
+				output.append(entry.getValue());
+			}//end for(entry)
+			output.close();
+			
+			if(output.isUnchanged()){
+				output.discard();
+			}else{
+				output.commit();
+			}//end if
+		} catch (IOException e) {
+			output.discard();
+			throw e;
+		}//end try
+	}//end saveFile()
+	
+	/**
+	 * @param key
+	 * @return cached code or null if the cache does not contain the key
+	 */
+	public String get(String key){
+		String code = this.entries.get(key);
+		if(code == null){
+			this.misses.incrementAndGet();
+		}else{
+			this.hits.incrementAndGet();
+			this.usedKeys.add(key);
+		}//end if
+		return code;
+	}//end get()
+	
+	/**
+	 * @param key content hash of the input of the code
+	 * @param code rendered code
+	 */
+	public void put(String key, String code){
+		this.entries.put(key, code);
+		this.usedKeys.add(key);
+	}//end put()
+	
+	/**
+	 * Remove all entries that have not been used since the cache has been created
+	 */
+	public void removeUnused(){
+		for(Iterator<String> keys = this.entries.keySet().iterator(); keys.hasNext();){
+			if(!this.usedKeys.contains(keys.next())) keys.remove();
+		}//end for(keys)
+	}//end removeUnused()
+	
+	public void clear(){
+		this.entries.clear();
+		this.usedKeys.clear();
+	}//end clear()
+	
+	public File getFile(){return this.file;}
+	public int size(){return this.entries.size();}
+	
+	/**
+	 * @return number of calls of get() that have found the code
+	 */
+	public int getHits(){return this.hits.get();}
+	
+	/**
+	 * @return number of calls of get() that have not found the code
+	 */
+	public int getMisses(){return this.misses.get();}
+	
+	/**
+	 * Create the SHA-256 hash of a text
+	 * @param content
+	 * @return hash as hex string
+	 */
+	public static String hash(CharSequence content){
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {//every java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}//end try
+		
+		byte[] hash = digest.digest(content.toString().getBytes(CHARSET));
+		char[] hex = new char[hash.length * 2];
+		for(int i = 0; i < hash.length; i++){
+			hex[2*i] = HEX[(hash[i] >> 4) & 0x0f];
+			hex[2*i+1] = HEX[hash[i] & 0x0f];
+		}//end for(i)
+		return new String(hex);
+	}//end hash()
+	
+}//end class
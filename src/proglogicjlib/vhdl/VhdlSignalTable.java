@@ -0,0 +1,104 @@
+/*BSD 3 clause license
+
+Copyright (c) 2014, Thomas Kinder, info@thinkingsand.com
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification,are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation 
+   and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+   may be used to endorse or promote products derived from this software 
+   without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL Thomas Kinder OR CONTRIBUTORS
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package com.proglogicjlib.vhdl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Signal declarations of a VHDL file keyed by net name. Every declaration is kept once, in the order the 
+ * declarations have been added. A net that is declared again with a different datatype or width is reported
+ * as a conflict, both declarations are kept so the conflict is visible in the VHDL code as well.
+ */
+public class VhdlSignalTable {
+	public static final String SIGNAL_CONFLICT_ID = "(VhdlSignalTable:001)";
+	public static final String SIGNAL_CONFLICT = SIGNAL_CONFLICT_ID + " Net is declared with conflicting datatypes or widths.";
+	
+	private HashMap<String, Integer> signalIndex = new HashMap<String, Integer>();
+	private ArrayList<String> declarations = new ArrayList<String>();
+	private ArrayList<String> references = new ArrayList<String>();
+	private ArrayList<Integer> next = new ArrayList<Integer>();	//next declaration of the same net, -1 = none
+	private ArrayList<String> conflicts = new ArrayList<String>();
+	
+	/**
+	 * Add the declaration of a net
+	 * @param name name of the net
+	 * @param declaration VHDL code of the declaration
+	 * @param reference component that declares the net, used for the conflict message
+	 * @return false if the net has already been declared with the same code
+	 */
+	public boolean addSignal(String name, String declaration, String reference){
+		Integer first = this.signalIndex.get(name);
+		int index = first == null ? -1 : first;
+		int last = -1;
+		
+		while(index >= 0){//declarations of this net
+			if(this.declarations.get(index).equals(declaration)) return false;
+			last = index;
+			index = this.next.get(index);
+		}//end while
+		
+		if(first == null){
+			this.signalIndex.put(name, this.declarations.size());
+		}else{
+			this.next.set(last, this.declarations.size());
+			this.conflicts.add(SIGNAL_CONFLICT + " Net = " + name + ", " + this.references.get(first) + ": \"" + this.declarations.get(first) 
+					+ "\", " + reference + ": \"" + declaration + "\"");
+		}//end if
+		
+		this.declarations.add(declaration);
+		this.references.add(reference);
+		this.next.add(-1);
+		return true;
+	}//end addSignal()
+	
+	public int size(){return this.declarations.size();}
+	public String getDeclaration(int index){return this.declarations.get(index);}
+	public boolean containsSignal(String name){return this.signalIndex.containsKey(name);}
+	
+	/**
+	 * @return one message per declaration that conflicts with the first declaration of its net
+	 */
+	public ArrayList<String> getConflicts(){return this.conflicts;}
+	
+	/**
+	 * Get the declarations with aligned " :" and " :=" 
+	 * @return
+	 */
+	public VhdlAlignment getAlignedDeclarations(){
+		VhdlAlignment alignment = new VhdlAlignment(" :", " :=");
+		for(int i = 0; i < this.declarations.size(); i++){
+			alignment.addLine(this.declarations.get(i), true);
+		}//end for(i)
+		return alignment;
+	}//end getAlignedDeclarations()
+	
+}//end class
@@ -0,0 +1,144 @@
+/*BSD 3 clause license
+
+Copyright (c) 2014, Thomas Kinder, info@thinkingsand.com
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification,are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation 
+   and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+   may be used to endorse or promote products derived from this software 
+   without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR 
+PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL Thomas Kinder OR CONTRIBUTORS
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON 
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package com.proglogicjlib.vhdl;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+
+/**
+ * A text with named placeholders like ${entityName}. The text is split into literal parts and placeholders 
+ * once, rendering writes the literal parts and lets a filler write the placeholders. "$$" is a literal "$".
+ */
+public class VhdlTemplate {
+	
+	/**
+	 * Writes the content of the placeholders of a template
+	 */
+	public interface Filler {
+		public void fill(String placeholder, Appendable out) throws IOException;
+	}//end interface
+	
+	private String[] texts;			//texts[i] is written before placeholders[i], the last text after the last placeholder
+	private String[] placeholders;
+	private Charset encodedCharset = null;
+	private byte[][] encodedTexts = null;	//texts encoded for a VhdlOutputFile
+	
+	private VhdlTemplate(String[] texts, String[] placeholders){
+		this.texts = texts;
+		this.placeholders = placeholders;
+	}//end constructor
+	
+	/**
+	 * Split a template text into its literal parts and placeholders
+	 * @param template
+	 * @return
+	 * @throws IllegalArgumentException if a placeholder is not closed
+	 */
+	public static VhdlTemplate compile(String template){
+		ArrayList<String> texts = new ArrayList<String>();
+		ArrayList<String> placeholders = new ArrayList<String>();
+		StringBuilder text = new StringBuilder();
+		int i = 0;
+		
+		while(i < template.length()){
+			char c = template.charAt(i);
+			if(c == '$' && i+1 < template.length() && template.charAt(i+1) == '$'){//escaped $
+				text.append('$');
+				i += 2;
+			}else if(c == '$' && i+1 < template.length() && template.charAt(i+1) == '{'){//placeholder
+				int end = template.indexOf('}', i+2);
+				if(end < 0) throw new IllegalArgumentException("Placeholder is not closed: " + template.substring(i));
+				texts.add(text.toString());
+				placeholders.add(template.substring(i+2, end));
+				text.setLength(0);
+				i = end + 1;
+			}else{
+				text.append(c);
+				i++;
+			}//end if
+		}//end while
+		texts.add(text.toString());
+		
+		return new VhdlTemplate(texts.toArray(new String[texts.size()]), placeholders.toArray(new String[placeholders.size()]));
+	}//end compile()
+	
+	/**
+	 * Escape a text so it is not changed by compile(), e.g. the content of a template file
+	 * @param text
+	 * @return
+	 */
+	public static String escape(String text){
+		return text.replace("$", "$$");
+	}//end escape()
+	
+	/**
+	 * Write the template, the placeholders are written by the filler in the order of the template
+	 * @param out
+	 * @param filler
+	 * @throws IOException
+	 */
+	public void render(Appendable out, Filler filler) throws IOException{
+		for(int i = 0; i < this.placeholders.length; i++){
+			this.writeText(out, i);
+			filler.fill(this.placeholders[i], out);
+		}//end for(i)
+		this.writeText(out, this.placeholders.length);
+	}//end render()
+	
+	public String[] getPlaceholders(){return this.placeholders.clone();}
+	
+	/**
+	 * Write a literal part of the template, a VhdlOutputFile gets the part encoded only once per template
+	 */
+	private void writeText(Appendable out, int index) throws IOException{
+		if(this.texts[index].length() == 0) return;
+		
+		if(out instanceof VhdlOutputFile){
+			((VhdlOutputFile) out).writeEncoded(this.getEncodedTexts(((VhdlOutputFile) out).getCharset())[index]);
+		}else{
+			out.append(this.texts[index]);
+		}//end if
+	}//end writeText()
+	
+	private synchronized byte[][] getEncodedTexts(Charset charset){
+		if(this.encodedTexts == null || !charset.equals(this.encodedCharset)){
+			byte[][] encoded = new byte[this.texts.length][];
+			for(int i = 0; i < this.texts.length; i++){
+				encoded[i] = this.texts[i].getBytes(charset);
+			}//end for(i)
+			this.encodedTexts = encoded;
+			this.encodedCharset = charset;
+		}//end if
+		return this.encodedTexts;
+	}//end getEncodedTexts()
+	
+}//end class
@@ -42,7 +42,7 @@ import com.proglogicjlib.vhdl.VhdlGeneric;
 import com.proglogicjlib.vhdl.VhdlPin;
 
 public class VhdlTopLevel extends VhdlComponent {
-	public static String TOP_NAME = "TOP";
+	public static final String TOP_NAME = "TOP";
 
 	private VhdlPin pin;
 
@@ -73,6 +73,11 @@ public class VhdlTopLevel extends VhdlComponent {
 		return null;
 	}//getVhdlComponentInstantiation()
 	
+	@Override
+	public boolean writeVhdlComponentInstantiation(Appendable out, boolean showUnusedInputs, int leadingWhiteSpaces) {
+		return false;
+	}//end writeVhdlComponentInstantiation()
+	
 	/**
 	 * Top level inputs do not have a entity declaration
 	 */